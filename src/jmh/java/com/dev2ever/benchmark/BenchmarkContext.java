@@ -0,0 +1,51 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.AspectConfig;
+import com.dev2ever.JpaConfig;
+import com.dev2ever.component.ChangeClock;
+import com.dev2ever.component.ChangeFeed;
+import com.dev2ever.component.IdempotencyKeys;
+import com.dev2ever.component.metrics.RequestMetricsInterceptor;
+import org.springframework.context.annotation.*;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * The production service layer wired against an in-memory H2 database in PostgreSQL mode, so the benchmarks run
+ * offline and without a database server.
+ */
+@Configuration
+@Import({JpaConfig.class, AspectConfig.class, IdempotencyKeys.class, ChangeClock.class,
+        ChangeFeed.class})
+@ComponentScan("com.dev2ever.service")
+@PropertySource("classpath:app.properties")
+public class BenchmarkContext {
+
+    @Bean
+    public RequestMetricsInterceptor requestMetricsInterceptor() {
+        return new RequestMetricsInterceptor();
+    }
+
+    public static AnnotationConfigApplicationContext start(String databaseName) {
+        return start(databaseName, Map.of());
+    }
+
+    /**
+     * @param properties overrides of app.properties for this benchmark
+     */
+    public static AnnotationConfigApplicationContext start(String databaseName, Map<String, Object> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().setActiveProfiles("production");
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "db.driver", "org.h2.Driver",
+                "db.url", "jdbc:h2:mem:" + databaseName + ";MODE=PostgreSQL;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1",
+                "db.username", "sa",
+                "db.password", "",
+                "hibernate.show_sql", "false")));
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("overrides", properties));
+        context.register(BenchmarkContext.class);
+        context.refresh();
+        return context;
+    }
+}
@@ -0,0 +1,92 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.model.Author;
+import com.dev2ever.repository.RepositoryBuy;
+import com.dev2ever.service.ServiceAuthor;
+import com.dev2ever.service.ServiceBook;
+import com.dev2ever.service.ServiceBookSales;
+import com.dev2ever.service.ServiceBuy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to delete {@code size} purchases: one set-based {@code ServiceBuy.deleteBuys} against one transaction per
+ * purchase that loads it and deletes it through the repository, as deleting purchases took before. Every iteration
+ * deletes a fresh set of purchases created in its setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class DeleteBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    @Param({"perId", "bulk"})
+    private String mode;
+
+    private AnnotationConfigApplicationContext context;
+    private ServiceBuy serviceBuy;
+    private ServiceBookSales serviceBookSales;
+    private RepositoryBuy repositoryBuy;
+    private TransactionTemplate transactionTemplate;
+    private JsonBuy jsonBuy;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("delete-" + size + "-" + mode);
+        ServiceAuthor serviceAuthor = context.getBean(ServiceAuthor.class);
+        ServiceBook serviceBook = context.getBean(ServiceBook.class);
+        serviceBuy = context.getBean(ServiceBuy.class);
+        serviceBookSales = context.getBean(ServiceBookSales.class);
+        repositoryBuy = context.getBean(RepositoryBuy.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        serviceAuthor.save(new Author("Jane", "Doe", "jane@example.com", "000-000-0000"));
+        long idAuthor = serviceAuthor.getAll().getFirst().getId();
+        serviceBook.save(new JsonBook("Benchmark Title", "Acme", 2000, idAuthor));
+        long idBook = serviceBook.findAll().getFirst().getId();
+        jsonBuy = new JsonBuy(BigDecimal.ONE, BigDecimal.TEN, "benchmark", idBook);
+    }
+
+    @Setup(Level.Iteration)
+    public void createPurchases() {
+        ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(serviceBuy.createBuy(jsonBuy));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long delete() {
+        if (mode.equals("bulk")) {
+            return serviceBuy.deleteBuys(ids).buys();
+        }
+        long deleted = 0;
+        for (Long id : ids) {
+            deleted += transactionTemplate.execute(status -> repositoryBuy.findById(id).map(buy -> {
+                repositoryBuy.delete(buy);
+                serviceBookSales.recordRemoval(buy.getBook().getId(), buy.getAmount(), buy.getPrice());
+                return 1;
+            }).orElse(0));
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,83 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.model.Author;
+import com.dev2ever.model.Buy;
+import com.dev2ever.service.ServiceAuthor;
+import com.dev2ever.service.ServiceBook;
+import com.dev2ever.service.ServiceBuy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * equals/hashCode of the entities, as used when entities are put in hash based collections, on purchases persisted
+ * through the service layer and read back, so every one has an id. equals compares the entity class and id and no
+ * longer walks Buy -> Book -> Author: buyEquals compares two instances of the same row, buyNotEquals two rows.
+ * hashCode is per class, so a set of one entity type shares a single hash bucket, which HashMap turns into a tree
+ * that Buy, not being Comparable, can only search by walking it; buyHashSet shows what that costs for 1000 purchases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityEqualityBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private Buy buy;
+    private Buy sameBuy;
+    private Buy otherBuy;
+    private List<Buy> buys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("equality");
+        ServiceAuthor serviceAuthor = context.getBean(ServiceAuthor.class);
+        ServiceBook serviceBook = context.getBean(ServiceBook.class);
+        ServiceBuy serviceBuy = context.getBean(ServiceBuy.class);
+        Author author = new Author("Jane", "Doe", "jane@example.com", "000-000-0000");
+        serviceAuthor.save(author);
+        serviceBook.save(new JsonBook("Benchmark Title", "Acme", 2000, author.getId()));
+        long idBook = serviceBook.findAll().getFirst().getId();
+        IntStream.range(0, 1000).forEach(i ->
+                serviceBuy.createBuy(new JsonBuy(BigDecimal.ONE, BigDecimal.TEN, "Purchase " + i, idBook)));
+        buys = serviceBuy.findAll();
+        buy = buys.getFirst();
+        sameBuy = serviceBuy.findBuy(buy.getId());
+        otherBuy = buys.getLast();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int buyHashCode() {
+        return buy.hashCode();
+    }
+
+    @Benchmark
+    public boolean buyEquals() {
+        return buy.equals(sameBuy);
+    }
+
+    @Benchmark
+    public boolean buyNotEquals() {
+        return buy.equals(otherBuy);
+    }
+
+    @Benchmark
+    public Set<Buy> buyHashSet() {
+        return new HashSet<>(buys);
+    }
+}
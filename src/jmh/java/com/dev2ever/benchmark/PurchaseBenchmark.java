@@ -0,0 +1,70 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.model.Author;
+import com.dev2ever.service.ServiceAuthor;
+import com.dev2ever.service.ServiceBook;
+import com.dev2ever.service.ServiceBuy;
+import com.dev2ever.service.ServiceBuyWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purchases per second from concurrent callers, committed one transaction per purchase (writeBehind=false) or
+ * queued for group commit by ServiceBuyWriter (writeBehind=true). A caller that finds the queue full retries, so in
+ * steady state the write-behind figure is the rate at which groups are committed, not just the enqueue rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class PurchaseBenchmark {
+
+    @Param({"false", "true"})
+    private boolean writeBehind;
+
+    private AnnotationConfigApplicationContext context;
+    private ServiceBuy serviceBuy;
+    private ServiceBuyWriter serviceBuyWriter;
+    private JsonBuy jsonBuy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("purchase-" + writeBehind, Map.of(
+                "buy.write-behind.enabled", String.valueOf(writeBehind),
+                "buy.write-behind.queue-capacity", "1000"));
+        ServiceAuthor serviceAuthor = context.getBean(ServiceAuthor.class);
+        ServiceBook serviceBook = context.getBean(ServiceBook.class);
+        serviceBuy = context.getBean(ServiceBuy.class);
+        serviceBuyWriter = context.getBean(ServiceBuyWriter.class);
+        serviceAuthor.save(new Author("Jane", "Doe", "jane@example.com", "000-000-0000"));
+        long idAuthor = serviceAuthor.getAll().getFirst().getId();
+        serviceBook.save(new JsonBook("Benchmark Title", "Acme", 2000, idAuthor));
+        long idBook = serviceBook.findAll().getFirst().getId();
+        jsonBuy = new JsonBuy(BigDecimal.ONE, BigDecimal.TEN, "benchmark", idBook);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void purchase() {
+        if (!writeBehind) {
+            serviceBuy.createBuy(jsonBuy);
+            return;
+        }
+        while (!serviceBuyWriter.enqueue(jsonBuy)) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.AppConfig;
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.api.rest.ViewShape;
+import com.dev2ever.model.Author;
+import com.dev2ever.model.Book;
+import com.dev2ever.model.Buy;
+import com.dev2ever.service.ServiceAuthor;
+import com.dev2ever.service.ServiceBook;
+import com.dev2ever.service.ServiceBuy;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * find/all listings: loading the Book and Buy graphs and writing them with the application's ObjectMapper, both
+ * together and serialization alone, next to the view/all listings built from constructor-expression projections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1000"})
+    private int rows;
+
+    private AnnotationConfigApplicationContext context;
+    private ServiceBook serviceBook;
+    private ServiceBuy serviceBuy;
+    private ObjectMapper objectMapper;
+    private List<Book> books;
+    private List<Buy> buys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("serialization");
+        objectMapper = new AppConfig().objectMapper();
+        ServiceAuthor serviceAuthor = context.getBean(ServiceAuthor.class);
+        serviceBook = context.getBean(ServiceBook.class);
+        serviceBuy = context.getBean(ServiceBuy.class);
+        for (int i = 0; i < 10; i++) {
+            serviceAuthor.save(new Author("Name " + i, "Last name " + i, "author" + i + "@example.com", "000-000-0000"));
+        }
+        List<Author> authors = serviceAuthor.getAll();
+        List<JsonBook> feed = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            feed.add(new JsonBook("Title " + i, "Publisher " + i % 20, 1950 + i % 70, authors.get(i % authors.size()).getId()));
+        }
+        serviceBook.saveAll(feed.iterator());
+        books = serviceBook.findAll();
+        for (Book book : books) {
+            serviceBuy.createBuy(new JsonBuy(BigDecimal.ONE, BigDecimal.TEN, "Purchase of " + book.getTitle(), book.getId()));
+        }
+        buys = serviceBuy.findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] findAllBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(serviceBook.findAll());
+    }
+
+    @Benchmark
+    public byte[] findAllBuys() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(serviceBuy.findAll());
+    }
+
+    @Benchmark
+    public byte[] findBookViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(serviceBook.findViews(ViewShape.FLAT, 0, null));
+    }
+
+    @Benchmark
+    public byte[] findBuyViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(serviceBuy.findViews(ViewShape.FLAT, 0, null));
+    }
+
+    @Benchmark
+    public byte[] findBuyRefViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(serviceBuy.findViews(ViewShape.REF, 0, null));
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeBuys() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(buys);
+    }
+}
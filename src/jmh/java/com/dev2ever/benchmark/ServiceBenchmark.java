@@ -0,0 +1,60 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.model.Author;
+import com.dev2ever.service.ServiceAuthor;
+import com.dev2ever.service.ServiceBook;
+import com.dev2ever.service.ServiceBuy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write path of the service layer: one book or one purchase per call, each in its own transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private ServiceBook serviceBook;
+    private ServiceBuy serviceBuy;
+    private JsonBook jsonBook;
+    private JsonBuy jsonBuy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("service");
+        ServiceAuthor serviceAuthor = context.getBean(ServiceAuthor.class);
+        serviceBook = context.getBean(ServiceBook.class);
+        serviceBuy = context.getBean(ServiceBuy.class);
+        serviceAuthor.save(new Author("Jane", "Doe", "jane@example.com", "000-000-0000"));
+        long idAuthor = serviceAuthor.getAll().getFirst().getId();
+        jsonBook = new JsonBook("Benchmark Title", "Acme", 2000, idAuthor);
+        serviceBook.save(jsonBook);
+        long idBook = serviceBook.findAll().getFirst().getId();
+        jsonBuy = new JsonBuy(BigDecimal.ONE, BigDecimal.TEN, "benchmark", idBook);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void saveBook() {
+        serviceBook.save(jsonBook);
+    }
+
+    @Benchmark
+    public void createBuy() {
+        serviceBuy.createBuy(jsonBuy);
+    }
+}
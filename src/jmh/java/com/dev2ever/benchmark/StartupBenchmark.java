@@ -0,0 +1,72 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.AppConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of the whole web application, the way DispatcherInitializer boots it, against an in-memory H2 database:
+ * each fork is a fresh JVM that refreshes the context, runs the migrations and serves {@code GET /api/book/find/all}
+ * once, so the score is the time to the first response. The JVM uptime when the context is ready and at the first
+ * response, and the heap still in use after a full GC, are printed per fork. PROJECT-INFO.md shows how to run it with
+ * a class-data sharing archive, which needs a classpath of jars only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(3)
+public class StartupBenchmark {
+
+    @Param({"production", "production,fast-startup"})
+    private String profiles;
+
+    private AnnotationConfigWebApplicationContext context;
+    private long readyMillis;
+
+    @Benchmark
+    public int firstRequest() throws Exception {
+        MockServletContext servletContext = new MockServletContext();
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(servletContext);
+        context.getEnvironment().setActiveProfiles(profiles.split(","));
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "db.driver", "org.h2.Driver",
+                "db.url", "jdbc:h2:mem:startup;MODE=PostgreSQL;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1",
+                "db.username", "sa",
+                "db.password", "")));
+        context.register(AppConfig.class);
+
+        DispatcherServlet servlet = new DispatcherServlet(context);
+        servlet.init(new MockServletConfig(servletContext, "dispatcher"));
+        readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/api/book/find/all");
+        request.setServletPath("/api");
+        request.setPathInfo("/book/find/all");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        servlet.service(request, response);
+        return response.getStatus();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.gc();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        System.out.printf("%n[%s] JVM uptime when the context is ready: %d ms, at first response: %d ms, heap in use: %.1f MB%n",
+                profiles, readyMillis, uptime, heap.getUsed() / (1024.0 * 1024.0));
+        context.close();
+    }
+}
@@ -0,0 +1,174 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.AppConfig;
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.model.Author;
+import com.dev2ever.service.ServiceAuthor;
+import com.dev2ever.service.ServiceBook;
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Requests per second of {@code GET /api/book/view/page} over HTTP against an embedded Tomcat, with the controller
+ * methods on Tomcat's request threads (virtualThreads=false) or on virtual threads ({@code app.virtual-threads.enabled}).
+ * Each benchmark thread is a client that keeps one request open at a time. Every SQL statement first waits
+ * {@link #STATEMENT_LATENCY_MS}, as it would for a database across the network, so requests spend most of their time
+ * blocked on JDBC, which is the case virtual threads are for.
+ * <p>
+ * Both modes run with the same heap and the same {@link #MAX_THREADS} Tomcat threads, and the pool has more
+ * connections than that, so with platform threads the container is the limit. The heap in use after a full GC and
+ * the live and peak platform thread counts of the JVM, clients included, are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(200)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class VirtualThreadLoadBenchmark {
+
+    static final int MAX_THREADS = 20;
+    static final long STATEMENT_LATENCY_MS = 50;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private Tomcat tomcat;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.getEnvironment().setActiveProfiles("production");
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "db.driver", "org.h2.Driver",
+                "db.url", "jdbc:h2:mem:load;MODE=PostgreSQL;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1",
+                "db.username", "sa",
+                "db.password", "",
+                "db.pool.max-total", "100",
+                "db.pool.max-idle", "100",
+                // the blocked requests exceed both thresholds, and their warnings would cost more than the requests
+                "sql.metrics.slow-statement-ms", "60000",
+                "tracing.slow-call-ms", "60000",
+                "app.virtual-threads.enabled", String.valueOf(virtualThreads))));
+        context.register(AppConfig.class, RemoteDatabase.class);
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+        tomcat.setPort(0);
+        Connector connector = tomcat.getConnector();
+        connector.setProperty("maxThreads", String.valueOf(MAX_THREADS));
+        Context servletContext = tomcat.addContext("", null);
+        Wrapper dispatcher = Tomcat.addServlet(servletContext, "dispatcher", new DispatcherServlet(context));
+        dispatcher.setAsyncSupported(true);
+        dispatcher.setLoadOnStartup(1);
+        servletContext.addServletMappingDecoded("/api/*", "dispatcher");
+        tomcat.start();
+
+        ServiceAuthor serviceAuthor = context.getBean(ServiceAuthor.class);
+        Author author = new Author("Jane", "Doe", "jane@example.com", "000-000-0000");
+        serviceAuthor.save(author);
+        context.getBean(ServiceBook.class).saveAll(IntStream.range(0, 20)
+                .mapToObj(i -> new JsonBook("Benchmark Title " + i, "Acme", 2000, author.getId()))
+                .iterator());
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + connector.getLocalPort()
+                + "/api/book/view/page?limit=20")).build();
+    }
+
+    @Benchmark
+    public int viewPage() throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        System.gc();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        System.out.printf("%n[virtualThreads=%s] heap in use: %.1f MB, platform threads live: %d, peak: %d%n",
+                virtualThreads, heap.getUsed() / (1024.0 * 1024.0),
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        client.close();
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    /**
+     * Delays every statement the application prepares by {@link #STATEMENT_LATENCY_MS}, while the pooled connection
+     * is held, like a round trip to a database server.
+     */
+    @Configuration
+    static class RemoteDatabase {
+
+        @Bean
+        static BeanPostProcessor statementLatency() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                            ? new LatencyDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    static class LatencyDataSource extends DelegatingDataSource implements AutoCloseable {
+
+        LatencyDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                            Thread.sleep(STATEMENT_LATENCY_MS);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (obtainTargetDataSource() instanceof AutoCloseable dataSource) {
+                dataSource.close();
+            }
+        }
+    }
+}
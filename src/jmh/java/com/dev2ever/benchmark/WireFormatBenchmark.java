@@ -0,0 +1,79 @@
+package com.dev2ever.benchmark;
+
+import com.dev2ever.AppConfig;
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.model.Author;
+import com.dev2ever.model.Book;
+import com.dev2ever.service.ServiceAuthor;
+import com.dev2ever.service.ServiceBook;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU cost of writing the book find/all listing in each media type the API offers, with and without the gzip
+ * applied by CompressionFilter. The size of each payload on the wire is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"1000"})
+    private int rows;
+
+    private ObjectMapper objectMapper;
+    private List<Book> books;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "cbor" -> AppConfig.configure(new CBORMapper());
+            case "smile" -> AppConfig.configure(new SmileMapper());
+            default -> new AppConfig().objectMapper();
+        };
+        try (AnnotationConfigApplicationContext context = BenchmarkContext.start("wire-format")) {
+            ServiceAuthor serviceAuthor = context.getBean(ServiceAuthor.class);
+            ServiceBook serviceBook = context.getBean(ServiceBook.class);
+            for (int i = 0; i < 10; i++) {
+                serviceAuthor.save(new Author("Name " + i, "Last name " + i, "author" + i + "@example.com", "000-000-0000"));
+            }
+            List<Author> authors = serviceAuthor.getAll();
+            List<JsonBook> feed = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                feed.add(new JsonBook("Title " + i, "Publisher " + i % 20, 1950 + i % 70, authors.get(i % authors.size()).getId()));
+            }
+            serviceBook.saveAll(feed.iterator());
+            books = serviceBook.findAll();
+        }
+        System.out.printf("%n%s gzip=%s: %d bytes on the wire for %d books%n", format, gzip, write().length, books.size());
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes) {
+            objectMapper.writeValue(out, books);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,19 +1,89 @@
 package com.dev2ever;
 
 
-import com.dev2ever.sample.SampleAppConfig;
+import com.dev2ever.component.metrics.RequestMetricsInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.*;
-import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
-@EnableWebMvc
-@ComponentScan(basePackages = "com.dev2ever")
-@Import({SampleAppConfig.class, ProductionAppConfig.class, AspectConfig.class})
+@ComponentScan(basePackages = {"com.dev2ever.api.rest", "com.dev2ever.component", "com.dev2ever.service"})
+@Import({WebMvcConfig.class, ProductionAppConfig.class, FastStartupConfig.class, AspectConfig.class})
 @PropertySource("classpath:app.properties")
 public class AppConfig extends BeanInfo implements WebMvcConfigurer {
 
+    @Bean
+    public ObjectMapper objectMapper() {
+        return configure(new ObjectMapper());
+    }
 
-}
+    /**
+     * Applies the application's serialization settings to a mapper of any format (JSON, CBOR, Smile).
+     */
+    public static <T extends ObjectMapper> T configure(T objectMapper) {
+        // Lazy associations that were not part of the endpoint's fetch plan are written as their id instead of
+        // being loaded (or failing) while the response is serialized.
+        objectMapper
+                .registerModule(new Hibernate6Module()
+                        .enable(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS))
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return objectMapper;
+    }
+
+    /**
+     * Runs controller methods (see VirtualThreadHandlerAdapter) and Spring MVC async work, such as returned Callables,
+     * on one virtual thread per task.
+     */
+    @Bean
+    public AsyncTaskExecutor requestExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("request-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
 
+    @Bean
+    public RequestMetricsInterceptor requestMetricsInterceptor() {
+        return new RequestMetricsInterceptor();
+    }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(requestExecutor());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // CBOR (application/cbor) and Smile (application/x-jackson-smile) converters are registered by Spring because
+        // their Jackson formats are on the classpath; they get the same settings as JSON for service-to-service clients.
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter json) {
+                json.setObjectMapper(objectMapper());
+            } else if (converter instanceof MappingJackson2CborHttpMessageConverter cbor) {
+                cbor.setObjectMapper(configure(new CBORMapper()));
+            } else if (converter instanceof MappingJackson2SmileHttpMessageConverter smile) {
+                smile.setObjectMapper(configure(new SmileMapper()));
+            }
+        }
+    }
+}
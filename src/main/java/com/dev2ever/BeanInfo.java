@@ -9,6 +9,6 @@ public abstract class BeanInfo {
 
     @PostConstruct
     public void printInfo(){
-        logger.info("BeanInfo: Loaded bean " + this.getClass().getName());
+        logger.fine(() -> "BeanInfo: Loaded bean " + this.getClass().getName());
     }
 }
@@ -1,5 +1,8 @@
 package com.dev2ever;
 
+import jakarta.servlet.Filter;
+import org.springframework.web.filter.DelegatingFilterProxy;
+import org.springframework.web.servlet.FrameworkServlet;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
 public class DispatcherInitializer extends AbstractAnnotationConfigDispatcherServletInitializer {
@@ -18,4 +21,16 @@ public class DispatcherInitializer extends AbstractAnnotationConfigDispatcherSer
     protected String[] getServletMappings() {
         return new String[]{"/api/*"};
     }
+
+    @Override
+    protected Filter[] getServletFilters() {
+        return new Filter[]{filterBean("compressionFilter")};
+    }
+
+    private DelegatingFilterProxy filterBean(String name) {
+        // The filter bean lives in the dispatcher's context, which is only looked up on the first request
+        DelegatingFilterProxy filter = new DelegatingFilterProxy(name);
+        filter.setContextAttribute(FrameworkServlet.SERVLET_CONTEXT_PREFIX + getServletName());
+        return filter;
+    }
 }
@@ -0,0 +1,34 @@
+package com.dev2ever;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * The {@code fast-startup} profile: application beans are created on first use instead of during the refresh, and
+ * fast-startup.properties, which overrides app.properties, skips Hibernate's schema validation and JDBC metadata
+ * lookups at boot. A bean that must exist from the start opts out with {@code @Lazy(false)}; beans reached from a
+ * context event, such as the search index rebuild, are still created during the refresh.
+ */
+@Configuration
+@Profile("fast-startup")
+@PropertySource("classpath:fast-startup.properties")
+public class FastStartupConfig {
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyInitialization() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (definition.getRole() == BeanDefinition.ROLE_APPLICATION
+                        && definition instanceof AbstractBeanDefinition bean && bean.getLazyInit() == null) {
+                    bean.setLazyInit(true);
+                }
+            }
+        };
+    }
+}
@@ -1,9 +1,16 @@
 package com.dev2ever;
 
+import com.dev2ever.component.metrics.SqlStatementMetrics;
+import com.dev2ever.datasource.PooledDataSourceFactory;
+import com.dev2ever.datasource.StatementMetricsDataSource;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
 import jakarta.persistence.EntityManagerFactory;
-import org.apache.commons.dbcp2.BasicDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cache.jcache.ConfigSettings;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -12,7 +19,11 @@ import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.OptionalLong;
 
 @Configuration
 @EnableTransactionManagement
@@ -20,31 +31,91 @@ import javax.sql.DataSource;
 @Profile("production")
 public class JpaConfig extends BeanInfo{
 
+    /**
+     * The pool, or the read/write pair, behind a proxy that times every statement when {@code sql.metrics.enabled}
+     * is set.
+     */
     @Bean
-    public DataSource dataSource(Environment env) {
-        BasicDataSource dataSource = new BasicDataSource();
-        dataSource.setDriverClassName(env.getRequiredProperty("db.driver"));
-        dataSource.setUrl(env.getRequiredProperty("db.url"));
-        dataSource.setUsername(env.getRequiredProperty("db.username"));
-        dataSource.setPassword(env.getRequiredProperty("db.password"));
-        dataSource.setInitialSize(5);
-        dataSource.setMinIdle(5);
-        dataSource.setMaxIdle(5);
-        dataSource.setMaxTotal(10);
-        return dataSource;
+    public DataSource dataSource(Environment env, SqlStatementMetrics sqlStatementMetrics) {
+        DataSource dataSource = PooledDataSourceFactory.createReadWrite(env);
+        if (!env.getProperty("sql.metrics.enabled", Boolean.class, true)) {
+            return dataSource;
+        }
+        return new StatementMetricsDataSource(dataSource, sqlStatementMetrics);
     }
 
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+    public SqlStatementMetrics sqlStatementMetrics(Environment env) {
+        return new SqlStatementMetrics(env.getProperty("sql.metrics.slow-statement-ms", Long.class, 100L),
+                env.getProperty("sql.metrics.n-plus-one-threshold", Integer.class, 10),
+                env.getProperty("sql.metrics.max-shapes", Integer.class, 1000));
+    }
+
+    /**
+     * In-process cache backing Hibernate's second-level cache. Each region is bounded by size and time to live
+     * taken from app.properties; the update timestamps region must never expire, otherwise cached query results
+     * could outlive the writes that invalidate them.
+     */
+    @Bean
+    public CacheManager cacheManager(Environment env) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        createCacheRegion(cacheManager, env, "author");
+        createCacheRegion(cacheManager, env, "book");
+        createCacheRegion(cacheManager, env, "default-query-results-region");
+        cacheManager.createCache("default-update-timestamps-region", new CaffeineConfiguration<>().setStatisticsEnabled(true));
+        return cacheManager;
+    }
+
+    private void createCacheRegion(CacheManager cacheManager, Environment env, String region) {
+        long maxSize = env.getProperty("cache." + region + ".max-size", Long.class, 10_000L);
+        Duration ttl = Duration.ofSeconds(env.getProperty("cache." + region + ".ttl-seconds", Long.class, 600L));
+        cacheManager.createCache(region, new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maxSize))
+                .setExpireAfterWrite(OptionalLong.of(ttl.toNanos()))
+                .setStatisticsEnabled(true));
+    }
+
+    /**
+     * Applies the versioned migrations of {@code db/migration} before Hibernate starts, which then only validates
+     * the schema against the mapping.
+     */
+    @Bean(initMethod = "migrate")
+    public Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .load();
+    }
+
+    @Bean
+    @DependsOn("flyway")
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, Environment env,
+                                                                       CacheManager cacheManager) {
         LocalContainerEntityManagerFactoryBean entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
         entityManagerFactoryBean.setDataSource(dataSource);
         entityManagerFactoryBean.setPackagesToScan("com.dev2ever.model");
         entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
 
         // Additional JPA properties
-        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.hbm2ddl.auto", "create");
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.hbm2ddl.auto", env.getProperty("hibernate.hbm2ddl.auto", "validate"));
         entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
-        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.show_sql", "true");
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.show_sql", env.getProperty("hibernate.show_sql", "false"));
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.default_batch_fetch_size",
+                env.getProperty("hibernate.default_batch_fetch_size", "32"));
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.jdbc.batch_size",
+                env.getProperty("hibernate.jdbc.batch_size", "50"));
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.order_inserts", "true");
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.order_updates", "true");
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.cache.use_second_level_cache", "true");
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.cache.use_query_cache", "true");
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.cache.region.factory_class", "jcache");
+        entityManagerFactoryBean.getJpaPropertyMap().put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.generate_statistics",
+                env.getProperty("hibernate.generate_statistics", "true"));
+        // statistics stay available to ServiceCache, without a multi-line INFO log at the end of every session
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.session.events.log", "false");
+        entityManagerFactoryBean.getJpaPropertyMap().put("hibernate.boot.allow_jdbc_metadata_access",
+                env.getProperty("hibernate.boot.allow_jdbc_metadata_access", "true"));
 
         return entityManagerFactoryBean;
     }
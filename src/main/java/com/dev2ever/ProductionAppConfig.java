@@ -1,11 +1,36 @@
 package com.dev2ever;
 
+import com.dev2ever.component.metrics.SqlStatementMetrics;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @Profile("production")
 @Import(JpaConfig.class)
-public class ProductionAppConfig extends BeanInfo{
+@EnableScheduling
+public class ProductionAppConfig extends BeanInfo implements WebMvcConfigurer {
+
+    private final SqlStatementMetrics sqlStatementMetrics;
+
+    public ProductionAppConfig(SqlStatementMetrics sqlStatementMetrics) {
+        this.sqlStatementMetrics = sqlStatementMetrics;
+    }
+
+    /**
+     * Counts the statements of each request, for the N+1 report of {@code metrics/sql}.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlStatementMetrics);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(sqlStatementMetrics);
+    }
 }
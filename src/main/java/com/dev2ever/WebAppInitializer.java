@@ -1,22 +0,0 @@
-package com.dev2ever;
-
-
-import org.springframework.web.WebApplicationInitializer;
-import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
-
-
-public class WebAppInitializer implements WebApplicationInitializer {
-
-    @Override
-    public void onStartup(jakarta.servlet.ServletContext servletContext) {
-        // Create the application context
-        AnnotationConfigWebApplicationContext rootContext = new AnnotationConfigWebApplicationContext();
-        rootContext.register(AppConfig.class); // Replace AppConfig with your configuration class
-
-        // Create the dispatcher servlet's Spring application context
-        AnnotationConfigWebApplicationContext dispatcherContext = new AnnotationConfigWebApplicationContext();
-        dispatcherContext.register(DispatcherInitializer.class);
-
-    }
-
-}
@@ -0,0 +1,30 @@
+package com.dev2ever;
+
+import com.dev2ever.component.VirtualThreadHandlerAdapter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.DelegatingWebMvcConfiguration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * What {@code @EnableWebMvc} imports, plus the handler adapter that runs controller methods on virtual threads when
+ * {@code app.virtual-threads.enabled} is set. WebMvcConfigurer beans such as AppConfig apply as before.
+ */
+@Configuration
+public class WebMvcConfig extends DelegatingWebMvcConfiguration {
+
+    private final AsyncTaskExecutor requestExecutor;
+
+    @Value("${app.virtual-threads.enabled:false}")
+    private boolean virtualThreads;
+
+    public WebMvcConfig(AsyncTaskExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+
+    @Override
+    protected RequestMappingHandlerAdapter createRequestMappingHandlerAdapter() {
+        return virtualThreads ? new VirtualThreadHandlerAdapter(requestExecutor) : super.createRequestMappingHandlerAdapter();
+    }
+}
@@ -0,0 +1,7 @@
+package com.dev2ever.api.rest;
+
+import java.math.BigDecimal;
+
+public record JsonAuthorSales(Long idAuthor, String name, String lastName, long purchases, BigDecimal units,
+                              BigDecimal revenue) {
+}
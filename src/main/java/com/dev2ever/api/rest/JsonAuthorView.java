@@ -0,0 +1,7 @@
+package com.dev2ever.api.rest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JsonAuthorView(Long id, Integer version, String name, String lastName, String email, String phone) {
+}
@@ -0,0 +1,48 @@
+package com.dev2ever.api.rest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The result of a multi-get: the entities found, in the order their ids were requested, and the requested ids that
+ * do not exist. Repeated ids are answered once.
+ */
+public record JsonBatch<T>(List<T> items, List<Long> missing) {
+
+    /**
+     * @param loader loads the given ids and returns a list of the same size and order, null where there is no entity
+     * @throws ResponseStatusException 400 when more than {@code maxIds} distinct ids are requested
+     */
+    public static <T> JsonBatch<T> of(List<Long> ids, int maxIds, Function<List<Long>, List<T>> loader) {
+        List<Long> distinctIds = distinctIds(ids, maxIds);
+        List<T> loaded = distinctIds.isEmpty() ? List.of() : loader.apply(distinctIds);
+        List<T> items = new ArrayList<>(loaded.size());
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            if (loaded.get(i) == null) {
+                missing.add(distinctIds.get(i));
+            } else {
+                items.add(loaded.get(i));
+            }
+        }
+        return new JsonBatch<>(items, missing);
+    }
+
+    /**
+     * The ids without repetitions, in request order.
+     *
+     * @throws ResponseStatusException 400 when there are more than {@code maxIds}
+     */
+    public static List<Long> distinctIds(List<Long> ids, int maxIds) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxIds + " ids per request");
+        }
+        return distinctIds;
+    }
+}
@@ -0,0 +1,4 @@
+package com.dev2ever.api.rest;
+
+public record JsonBookHit(Long id, String title, String publisher, String author, int score) {
+}
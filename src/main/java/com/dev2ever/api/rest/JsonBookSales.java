@@ -0,0 +1,6 @@
+package com.dev2ever.api.rest;
+
+import java.math.BigDecimal;
+
+public record JsonBookSales(Long idBook, String title, long purchases, BigDecimal units, BigDecimal revenue) {
+}
@@ -0,0 +1,10 @@
+package com.dev2ever.api.rest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JsonBookView(Long id, Integer version, String title, String publisher, Integer year, BigDecimal price,
+                           Long idAuthor, String authorName, String authorLastName) {
+}
@@ -0,0 +1,11 @@
+package com.dev2ever.api.rest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JsonBuyView(Long id, Integer version, BigDecimal amount, BigDecimal price, String description,
+                          Instant purchasedAt, Long idBook, String bookTitle) {
+}
@@ -0,0 +1,4 @@
+package com.dev2ever.api.rest;
+
+public record JsonCacheStatistics(String region, long hits, long misses, long puts) {
+}
@@ -0,0 +1,12 @@
+package com.dev2ever.api.rest;
+
+/**
+ * One committed change of the catalog as published on {@code GET /api/changes}: the entity type (Author, Book or
+ * Buy), its id and the version it was written with. Rows removed by a bulk delete carry no version.
+ */
+public record JsonChange(String type, Long id, Integer version, Operation operation) {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+}
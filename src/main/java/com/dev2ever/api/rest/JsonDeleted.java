@@ -0,0 +1,7 @@
+package com.dev2ever.api.rest;
+
+/**
+ * Rows removed by a delete, including those it cascaded to.
+ */
+public record JsonDeleted(long authors, long books, long buys) {
+}
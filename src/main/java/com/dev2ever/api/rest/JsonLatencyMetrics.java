@@ -0,0 +1,5 @@
+package com.dev2ever.api.rest;
+
+public record JsonLatencyMetrics(String name, long count, long errors, long inFlight, double meanMillis,
+                                 double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+}
@@ -0,0 +1,6 @@
+package com.dev2ever.api.rest;
+
+import java.util.List;
+
+public record JsonMetrics(long inFlight, List<JsonLatencyMetrics> endpoints, List<JsonLatencyMetrics> serviceMethods) {
+}
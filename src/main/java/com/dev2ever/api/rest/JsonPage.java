@@ -0,0 +1,16 @@
+package com.dev2ever.api.rest;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code next} is the cursor to pass as {@code after} to fetch the following
+ * page, or {@code null} once an empty page has been reached.
+ */
+public record JsonPage<T>(List<T> items, Long next) {
+
+    public static <T> JsonPage<T> of(List<T> items, Function<T, Long> idExtractor) {
+        Long next = items.isEmpty() ? null : idExtractor.apply(items.getLast());
+        return new JsonPage<>(items, next);
+    }
+}
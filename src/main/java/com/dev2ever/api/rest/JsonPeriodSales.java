@@ -0,0 +1,7 @@
+package com.dev2ever.api.rest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record JsonPeriodSales(Instant period, long purchases, BigDecimal units, BigDecimal revenue) {
+}
@@ -0,0 +1,6 @@
+package com.dev2ever.api.rest;
+
+import java.math.BigDecimal;
+
+public record JsonPublisherSales(String publisher, long purchases, BigDecimal units, BigDecimal revenue) {
+}
@@ -0,0 +1,4 @@
+package com.dev2ever.api.rest;
+
+public record JsonRepeatedStatement(String route, String sql, boolean batchLoad, long requests, long maxExecutions) {
+}
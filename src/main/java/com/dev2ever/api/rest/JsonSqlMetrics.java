@@ -0,0 +1,7 @@
+package com.dev2ever.api.rest;
+
+import java.util.List;
+
+public record JsonSqlMetrics(long slowStatements, List<JsonLatencyMetrics> statements,
+                             List<JsonRepeatedStatement> repeatedStatements) {
+}
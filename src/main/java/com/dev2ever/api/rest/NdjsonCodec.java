@@ -0,0 +1,49 @@
+package com.dev2ever.api.rest;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reads and writes newline delimited JSON one row at a time, so neither a request nor a response body is ever held
+ * in memory as a whole.
+ */
+@Component
+public class NdjsonCodec {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+
+    public NdjsonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> void write(HttpServletResponse response, Consumer<Consumer<T>> source) throws IOException {
+        response.setContentType(MEDIA_TYPE);
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(response.getOutputStream())) {
+            source.accept(row -> {
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    public <T, R> R read(HttpServletRequest request, Class<T> type, Function<Iterator<T>, R> sink) throws IOException {
+        try (MappingIterator<T> rows = objectMapper.readerFor(type).readValues(request.getInputStream())) {
+            return sink.apply(rows);
+        }
+    }
+}
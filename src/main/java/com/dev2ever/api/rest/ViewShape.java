@@ -0,0 +1,9 @@
+package com.dev2ever.api.rest;
+
+/**
+ * Shape of the read views: FLAT carries the display fields of the referenced rows (one join), REF only their ids (no
+ * join), so clients that resolve references themselves get the narrowest query and payload.
+ */
+public enum ViewShape {
+    FLAT, REF
+}
@@ -1,10 +1,15 @@
 package com.dev2ever.api.rest;
 
+import com.dev2ever.component.ChangeClock;
 import com.dev2ever.model.Author;
 import com.dev2ever.service.ServiceAuthor;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -13,21 +18,79 @@ import java.util.List;
 public class WsAuthor {
 
     private final ServiceAuthor serviceAuthor;
+    private final NdjsonCodec ndjsonCodec;
+    private final ChangeClock changeClock;
 
-    public WsAuthor(ServiceAuthor serviceAuthor) {
+    @Value("${api.batch.max-ids:100}")
+    private int maxBatchIds;
+
+    public WsAuthor(ServiceAuthor serviceAuthor, NdjsonCodec ndjsonCodec, ChangeClock changeClock) {
         this.serviceAuthor = serviceAuthor;
+        this.ndjsonCodec = ndjsonCodec;
+        this.changeClock = changeClock;
     }
 
+    /**
+     * Answers If-None-Match with 304 from the author version alone, without loading the author.
+     */
     @GetMapping("find/id")
-    public Author getAuthorById(@RequestParam("id") Long id) {
+    public Author getAuthorById(@RequestParam("id") Long id, WebRequest request) {
+        String eTag = serviceAuthor.getETag(id);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         return serviceAuthor.getById(id);
     }
 
+    /**
+     * Several authors in one request, e.g. {@code find/ids?id=1,2,3}.
+     */
+    @GetMapping("find/ids")
+    public JsonBatch<Author> getAuthorsByIds(@RequestParam("id") List<Long> ids) {
+        return JsonBatch.of(ids, maxBatchIds, serviceAuthor::getByIds);
+    }
+
     @GetMapping("find/all")
-    public List<Author> getAllAuthors() {
+    public List<Author> getAllAuthors(WebRequest request) {
+        if (request.checkNotModified(changeClock.getETag(Author.class), changeClock.getLastModified(Author.class))) {
+            return null;
+        }
         return serviceAuthor.getAll();
     }
 
+    @GetMapping(value = "find/all", produces = NdjsonCodec.MEDIA_TYPE)
+    public void streamAuthors(HttpServletResponse response) throws IOException {
+        ndjsonCodec.<Author>write(response, serviceAuthor::streamAll);
+    }
+
+    @GetMapping("find/page")
+    public JsonPage<Author> getAuthorPage(@RequestParam(value = "after", defaultValue = "0") long after,
+                                          @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                          WebRequest request) {
+        if (request.checkNotModified(changeClock.getETag(Author.class), changeClock.getLastModified(Author.class))) {
+            return null;
+        }
+        return JsonPage.of(serviceAuthor.getPage(after, limit), Author::getId);
+    }
+
+    @GetMapping("view/all")
+    public List<JsonAuthorView> getAuthorViews(WebRequest request) {
+        if (request.checkNotModified(changeClock.getETag(Author.class), changeClock.getLastModified(Author.class))) {
+            return null;
+        }
+        return serviceAuthor.getViews(0, null);
+    }
+
+    @GetMapping("view/page")
+    public JsonPage<JsonAuthorView> getAuthorViewPage(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                      @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                      WebRequest request) {
+        if (request.checkNotModified(changeClock.getETag(Author.class), changeClock.getLastModified(Author.class))) {
+            return null;
+        }
+        return JsonPage.of(serviceAuthor.getViews(after, limit), JsonAuthorView::id);
+    }
+
     @PostMapping(consumes = "application/json", value = "save")
     public void saveAuthor(@RequestBody Author author) {
         serviceAuthor.save(author);
@@ -37,4 +100,12 @@ public class WsAuthor {
     public void deleteAuthorById(@RequestParam("id") Long id) {
         serviceAuthor.deleteById(id);
     }
+
+    /**
+     * Deletes several authors with their books and purchases in one transaction: {@code delete/ids?id=1,2,3}.
+     */
+    @DeleteMapping("delete/ids")
+    public JsonDeleted deleteAuthorsByIds(@RequestParam("id") List<Long> ids) {
+        return serviceAuthor.deleteByIds(JsonBatch.distinctIds(ids, maxBatchIds));
+    }
 }
@@ -1,10 +1,18 @@
 package com.dev2ever.api.rest;
 
+import com.dev2ever.component.ChangeClock;
+import com.dev2ever.model.Author;
 import com.dev2ever.model.Book;
 import com.dev2ever.service.ServiceBook;
+import com.dev2ever.service.ServiceBookSearch;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -13,28 +21,130 @@ import java.util.List;
 public class WsBook {
 
     private final ServiceBook serviceBook;
+    private final ServiceBookSearch serviceBookSearch;
+    private final NdjsonCodec ndjsonCodec;
+    private final ChangeClock changeClock;
 
-    public WsBook(ServiceBook serviceBook) {
+    @Value("${api.batch.max-ids:100}")
+    private int maxBatchIds;
+
+    public WsBook(ServiceBook serviceBook, ServiceBookSearch serviceBookSearch, NdjsonCodec ndjsonCodec,
+                  ChangeClock changeClock) {
         this.serviceBook = serviceBook;
+        this.serviceBookSearch = serviceBookSearch;
+        this.ndjsonCodec = ndjsonCodec;
+        this.changeClock = changeClock;
     }
 
+    /**
+     * Answers If-None-Match with 304 from the book and author versions alone, without loading the book.
+     */
     @GetMapping("find/id")
-    public Book getBookById(@RequestParam("id") Long id) {
+    public Book getBookById(@RequestParam("id") Long id, WebRequest request) {
+        String eTag = serviceBook.findETag(id);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         return serviceBook.findById(id);
     }
 
+    /**
+     * Several books in one request, e.g. {@code find/ids?id=1,2,3}.
+     */
+    @GetMapping("find/ids")
+    public JsonBatch<Book> getBooksByIds(@RequestParam("id") List<Long> ids) {
+        return JsonBatch.of(ids, maxBatchIds, serviceBook::findByIds);
+    }
+
     @GetMapping("find/all")
-    public List<Book> getBooks() {
+    public List<Book> getBooks(WebRequest request) {
+        if (request.checkNotModified(changeClock.getETag(Book.class, Author.class),
+                changeClock.getLastModified(Book.class, Author.class))) {
+            return null;
+        }
         return serviceBook.findAll();
     }
 
+    @GetMapping(value = "find/all", produces = NdjsonCodec.MEDIA_TYPE)
+    public void streamBooks(HttpServletResponse response) throws IOException {
+        ndjsonCodec.<Book>write(response, serviceBook::streamAll);
+    }
+
+    @GetMapping("search")
+    public List<JsonBookHit> searchBooks(@RequestParam("q") String query,
+                                         @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return serviceBookSearch.search(query, limit);
+    }
+
+    @GetMapping("find/page")
+    public JsonPage<Book> getBookPage(@RequestParam(value = "after", defaultValue = "0") long after,
+                                      @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                      WebRequest request) {
+        if (request.checkNotModified(changeClock.getETag(Book.class, Author.class),
+                changeClock.getLastModified(Book.class, Author.class))) {
+            return null;
+        }
+        return JsonPage.of(serviceBook.findPage(after, limit), Book::getId);
+    }
+
+    /**
+     * Books as flat read views, without entities or nested authors (see ViewShape).
+     */
+    @GetMapping("view/all")
+    public List<JsonBookView> getBookViews(@RequestParam(value = "shape", defaultValue = "FLAT") ViewShape shape,
+                                           WebRequest request) {
+        if (request.checkNotModified(changeClock.getETag(Book.class, Author.class),
+                changeClock.getLastModified(Book.class, Author.class))) {
+            return null;
+        }
+        return serviceBook.findViews(shape, 0, null);
+    }
+
+    @GetMapping("view/page")
+    public JsonPage<JsonBookView> getBookViewPage(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                  @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                  @RequestParam(value = "shape", defaultValue = "FLAT") ViewShape shape,
+                                                  WebRequest request) {
+        if (request.checkNotModified(changeClock.getETag(Book.class, Author.class),
+                changeClock.getLastModified(Book.class, Author.class))) {
+            return null;
+        }
+        return JsonPage.of(serviceBook.findViews(shape, after, limit), JsonBookView::id);
+    }
+
     @PostMapping(consumes = "application/json", value = "save")
     public void saveBook(@RequestBody JsonBook book) {
         serviceBook.save(book);
     }
 
+    @PostMapping(consumes = "application/json", value = "bulk")
+    public long saveBooks(@RequestBody List<JsonBook> books) {
+        return serviceBook.saveAll(books.iterator());
+    }
+
+    @PostMapping(consumes = NdjsonCodec.MEDIA_TYPE, value = "bulk")
+    public long saveBooksStream(HttpServletRequest request) throws IOException {
+        return ndjsonCodec.read(request, JsonBook.class, serviceBook::saveAll);
+    }
+
     @DeleteMapping("delete")
     public void deleteBookById(@RequestParam("id") Long id) {
         serviceBook.deleteById(id);
     }
+
+    /**
+     * Deletes several books and their purchases in one transaction: {@code delete/ids?id=1,2,3}.
+     */
+    @DeleteMapping("delete/ids")
+    public JsonDeleted deleteBooksByIds(@RequestParam("id") List<Long> ids) {
+        return serviceBook.deleteByIds(JsonBatch.distinctIds(ids, maxBatchIds));
+    }
+
+    /**
+     * Deletes all books of the authors and their purchases, keeping the authors.
+     */
+    @DeleteMapping("delete/author")
+    public JsonDeleted deleteBooksByAuthor(@RequestParam("id") List<Long> idAuthors) {
+        return serviceBook.deleteByAuthorIds(JsonBatch.distinctIds(idAuthors, maxBatchIds));
+    }
 }
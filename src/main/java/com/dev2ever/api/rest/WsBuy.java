@@ -3,9 +3,17 @@ package com.dev2ever.api.rest;
 
 import com.dev2ever.model.Buy;
 import com.dev2ever.service.ServiceBuy;
+import com.dev2ever.service.ServiceBuyWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -14,9 +22,16 @@ import java.util.List;
 public class WsBuy {
 
     private final ServiceBuy serviceBuy;
+    private final ServiceBuyWriter serviceBuyWriter;
+    private final NdjsonCodec ndjsonCodec;
 
-    public WsBuy(ServiceBuy ServiceBuy) {
+    @Value("${api.batch.max-ids:100}")
+    private int maxBatchIds;
+
+    public WsBuy(ServiceBuy ServiceBuy, ServiceBuyWriter serviceBuyWriter, NdjsonCodec ndjsonCodec) {
         this.serviceBuy = ServiceBuy;
+        this.serviceBuyWriter = serviceBuyWriter;
+        this.ndjsonCodec = ndjsonCodec;
     }
 
     @GetMapping("find/id")
@@ -24,18 +39,82 @@ public class WsBuy {
         return serviceBuy.findBuy(id);
     }
 
+    /**
+     * Several purchases in one request, e.g. {@code find/ids?id=1,2,3}.
+     */
+    @GetMapping("find/ids")
+    public JsonBatch<Buy> getBuysByIds(@RequestParam("id") List<Long> ids) {
+        return JsonBatch.of(ids, maxBatchIds, serviceBuy::findBuys);
+    }
+
     @GetMapping("find/all")
     public List<Buy> getBooks() {
         return serviceBuy.findAll();
     }
 
+    @GetMapping(value = "find/all", produces = NdjsonCodec.MEDIA_TYPE)
+    public void streamBuys(HttpServletResponse response) throws IOException {
+        ndjsonCodec.<Buy>write(response, serviceBuy::streamAll);
+    }
+
+    @GetMapping("find/page")
+    public JsonPage<Buy> getBuyPage(@RequestParam(value = "after", defaultValue = "0") long after,
+                                    @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return JsonPage.of(serviceBuy.findPage(after, limit), Buy::getId);
+    }
+
+    /**
+     * Purchases as flat read views, without entities or nested books and authors (see ViewShape).
+     */
+    @GetMapping("view/all")
+    public List<JsonBuyView> getBuyViews(@RequestParam(value = "shape", defaultValue = "FLAT") ViewShape shape) {
+        return serviceBuy.findViews(shape, 0, null);
+    }
+
+    @GetMapping("view/page")
+    public JsonPage<JsonBuyView> getBuyViewPage(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                @RequestParam(value = "shape", defaultValue = "FLAT") ViewShape shape) {
+        return JsonPage.of(serviceBuy.findViews(shape, after, limit), JsonBuyView::id);
+    }
+
+    /**
+     * 200 with the id of the purchase once it is committed or, in write-behind mode, 202 once it is queued (see
+     * ServiceBuyWriter) and 429 while the queue is full. A retry carrying the same Idempotency-Key gets the original
+     * answer and does not create another purchase.
+     */
     @PostMapping(consumes = "application/json", value = "save")
-    public void saveBuy(@RequestBody JsonBuy buy) {
-        serviceBuy.createBuy(buy);
+    public ResponseEntity<Long> saveBuy(@RequestBody JsonBuy buy,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (!serviceBuyWriter.isEnabled()) {
+            Long id = serviceBuy.createBuy(buy, idempotencyKey);
+            // the key belongs to a queued purchase that is not committed yet
+            return id != null ? ResponseEntity.ok(id) : ResponseEntity.accepted().build();
+        }
+        if (serviceBuyWriter.enqueue(buy, idempotencyKey)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
     }
 
     @DeleteMapping("delete")
     public void deleteBookById(@RequestParam("id") Long id) {
         serviceBuy.deleteBuy(id);
     }
+
+    /**
+     * Deletes several purchases in one transaction: {@code delete/ids?id=1,2,3}.
+     */
+    @DeleteMapping("delete/ids")
+    public JsonDeleted deleteBuysByIds(@RequestParam("id") List<Long> ids) {
+        return serviceBuy.deleteBuys(JsonBatch.distinctIds(ids, maxBatchIds));
+    }
+
+    /**
+     * Deletes the purchases made before an instant, e.g. {@code delete/before?before=2020-01-01T00:00:00Z}.
+     */
+    @DeleteMapping("delete/before")
+    public JsonDeleted deleteBuysBefore(@RequestParam("before") Instant before) {
+        return serviceBuy.deleteBuysBefore(before);
+    }
 }
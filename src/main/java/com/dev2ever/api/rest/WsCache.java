@@ -0,0 +1,29 @@
+package com.dev2ever.api.rest;
+
+import com.dev2ever.service.ServiceCache;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("cache/")
+@Profile("production")
+public class WsCache {
+
+    private final ServiceCache serviceCache;
+
+    public WsCache(ServiceCache serviceCache) {
+        this.serviceCache = serviceCache;
+    }
+
+    @GetMapping("statistics")
+    public List<JsonCacheStatistics> getStatistics() {
+        return serviceCache.getStatistics();
+    }
+
+    @DeleteMapping("evict")
+    public void evictAll() {
+        serviceCache.evictAll();
+    }
+}
@@ -0,0 +1,162 @@
+package com.dev2ever.api.rest;
+
+import com.dev2ever.component.ChangeFeed;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The catalog change feed as Server-Sent Events. Every event carries its cursor as the SSE id, which EventSource
+ * clients send back as Last-Event-ID when they reconnect; other clients pass it as {@code after}. A {@code reset}
+ * event tells the client to reload the catalog before applying the changes that follow.
+ * <p>
+ * An open stream holds no thread: the handler returns an SseEmitter, and the subscription wakes a task on the
+ * request executor when events arrive, which writes what is queued and ends. Heartbeats are sent the same way from
+ * a scheduled sweep over the open streams.
+ */
+@RestController
+@RequestMapping("changes")
+@Profile("production")
+public class WsChanges {
+
+    public static final String MEDIA_TYPE = "text/event-stream";
+
+    Logger logger = Logger.getLogger(WsChanges.class.getName());
+
+    private final ChangeFeed changeFeed;
+    private final AsyncTaskExecutor requestExecutor;
+    private final Set<ChangeStream> streams = ConcurrentHashMap.newKeySet();
+
+    public WsChanges(ChangeFeed changeFeed, AsyncTaskExecutor requestExecutor) {
+        this.changeFeed = changeFeed;
+        this.requestExecutor = requestExecutor;
+    }
+
+    /**
+     * Streams changes until the client disconnects or falls {@code changes.feed.subscriber-buffer} events behind.
+     *
+     * @param type entity types to receive (Author, Book, Buy), all of them when absent
+     */
+    @GetMapping(produces = MEDIA_TYPE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(value = "after", required = false) String after,
+                                    @RequestParam(value = "type", required = false) Set<String> type,
+                                    HttpServletResponse response) throws IOException {
+        ChangeFeed.Subscription subscription = changeFeed.subscribe(lastEventId != null ? lastEventId : after, type);
+        if (subscription == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+        }
+        response.setHeader("Cache-Control", "no-cache");
+        // keeps reverse proxies from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        // no timeout: the stream stays open until the client goes away or the subscription ends
+        SseEmitter emitter = new SseEmitter(0L);
+        ChangeStream stream = new ChangeStream(subscription, emitter);
+        emitter.onCompletion(stream::close);
+        emitter.onError(e -> stream.close());
+        if (subscription.isReset()) {
+            emitter.send(SseEmitter.event().id(subscription.getStart()).name("reset")
+                    .data(Map.of("cursor", subscription.getStart()), MediaType.APPLICATION_JSON));
+        }
+        streams.add(stream);
+        subscription.setListener(stream::wake);
+        stream.wake();
+        return emitter;
+    }
+
+    /**
+     * Sends a keep-alive comment on the streams that had nothing to send since the last sweep; also how a client that
+     * went away is noticed, the write fails.
+     */
+    @Scheduled(fixedDelayString = "${changes.feed.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        streams.forEach(ChangeStream::heartbeat);
+    }
+
+    /**
+     * Writes the events of one subscription to its emitter. wake() can be called from any thread, the publishing one
+     * included, and never blocks: it starts a drain unless one is running, which then goes round again, so only one
+     * thread writes to the emitter at a time and in cursor order.
+     */
+    private class ChangeStream implements Runnable {
+
+        private final ChangeFeed.Subscription subscription;
+        private final SseEmitter emitter;
+        private final AtomicInteger wakeups = new AtomicInteger();
+        private volatile boolean heartbeatDue;
+        private volatile boolean sent;
+
+        ChangeStream(ChangeFeed.Subscription subscription, SseEmitter emitter) {
+            this.subscription = subscription;
+            this.emitter = emitter;
+        }
+
+        void wake() {
+            if (wakeups.getAndIncrement() == 0) {
+                requestExecutor.execute(this);
+            }
+        }
+
+        void heartbeat() {
+            if (!sent) {
+                heartbeatDue = true;
+                wake();
+            }
+            sent = false;
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wakeups.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            try {
+                ChangeFeed.Event event;
+                while ((event = subscription.next(0)) != null) {
+                    emitter.send(SseEmitter.event().id(subscription.cursor(event)).name("change")
+                            .data(event.change(), MediaType.APPLICATION_JSON));
+                    sent = true;
+                }
+                if (!subscription.isOpen()) {
+                    close();
+                    emitter.complete();
+                } else if (heartbeatDue) {
+                    heartbeatDue = false;
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client went away, or the emitter already completed
+                logger.log(Level.FINE, "Change stream closed", e);
+                close();
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void close() {
+            streams.remove(this);
+            subscription.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.dev2ever.api.rest;
+
+import com.dev2ever.datasource.InstrumentedDataSource;
+import com.dev2ever.datasource.ReadWriteDataSource;
+import com.dev2ever.service.ServiceDataSource;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("datasource/")
+@Profile("production")
+public class WsDataSource {
+
+    private final ServiceDataSource serviceDataSource;
+
+    public WsDataSource(ServiceDataSource serviceDataSource) {
+        this.serviceDataSource = serviceDataSource;
+    }
+
+    @GetMapping("statistics")
+    public InstrumentedDataSource.PoolStatistics getStatistics() {
+        return serviceDataSource.getStatistics();
+    }
+
+    @GetMapping("routing")
+    public ReadWriteDataSource.RoutingStatistics getRoutingStatistics() {
+        return serviceDataSource.getRoutingStatistics();
+    }
+}
@@ -0,0 +1,32 @@
+package com.dev2ever.api.rest;
+
+import com.dev2ever.service.ServiceMetrics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("metrics")
+public class WsMetrics {
+
+    private final ServiceMetrics serviceMetrics;
+
+    public WsMetrics(ServiceMetrics serviceMetrics) {
+        this.serviceMetrics = serviceMetrics;
+    }
+
+    @GetMapping
+    public JsonMetrics getMetrics() {
+        return serviceMetrics.getMetrics();
+    }
+
+    @GetMapping("sql")
+    public JsonSqlMetrics getSqlMetrics() {
+        return serviceMetrics.getSqlMetrics();
+    }
+
+    @GetMapping(value = "prometheus", produces = "text/plain;version=0.0.4")
+    public String getPrometheusMetrics() {
+        return serviceMetrics.getPrometheusMetrics();
+    }
+}
@@ -0,0 +1,70 @@
+package com.dev2ever.api.rest;
+
+import com.dev2ever.model.BookSalesSummary;
+import com.dev2ever.service.ServiceBookSales;
+import com.dev2ever.service.ServiceReport;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("report/sales/")
+@Profile("production")
+public class WsReport {
+
+    private final ServiceReport serviceReport;
+    private final ServiceBookSales serviceBookSales;
+
+    public WsReport(ServiceReport serviceReport, ServiceBookSales serviceBookSales) {
+        this.serviceReport = serviceReport;
+        this.serviceBookSales = serviceBookSales;
+    }
+
+    @GetMapping("summary")
+    public BookSalesSummary getBookSummary(@RequestParam("idBook") Long idBook) {
+        return serviceBookSales.findByBook(idBook);
+    }
+
+    @GetMapping("top")
+    public List<BookSalesSummary> getTopBooks(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return serviceBookSales.findTop(limit);
+    }
+
+    /**
+     * Recomputes the per-book totals of summary and top from the purchases, see ServiceBookSales#rebuild.
+     *
+     * @return the number of books with sales
+     */
+    @PostMapping("rebuild")
+    public int rebuildSummaries() {
+        return serviceBookSales.rebuild();
+    }
+
+    @GetMapping("book")
+    public List<JsonBookSales> salesByBook(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return serviceReport.salesByBook(from, to);
+    }
+
+    @GetMapping("author")
+    public List<JsonAuthorSales> salesByAuthor(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return serviceReport.salesByAuthor(from, to);
+    }
+
+    @GetMapping("publisher")
+    public List<JsonPublisherSales> salesByPublisher(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                     @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return serviceReport.salesByPublisher(from, to);
+    }
+
+    @GetMapping("period")
+    public List<JsonPeriodSales> salesByPeriod(@RequestParam(value = "bucket", defaultValue = "DAY") ServiceReport.Bucket bucket,
+                                               @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return serviceReport.salesByPeriod(bucket, from, to);
+    }
+}
@@ -0,0 +1,134 @@
+package com.dev2ever.component;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts committed inserts, updates and deletes per entity type, so list endpoints can answer conditional requests
+ * with an ETag and Last-Modified that cost nothing to compute. Changes are seen through Hibernate's post-commit
+ * events; bulk JPQL statements bypass them and must call {@link #changedOnCommit(Class[])} themselves. The counters live in
+ * this JVM and restart with it, which the ETag reflects by including the start time.
+ * <p>
+ * The ETag only stands for the rows while both come from the same place:
+ * <ul>
+ *     <li>The clock moves when the primary commits, so the tagged lists are read from the primary. Rows from a
+ *     lagging replica would be cached by clients under the newer ETag.</li>
+ *     <li>Writes made by another instance, or directly in the database, do not move this clock. Clients of this
+ *     instance keep getting 304 for lists those writes changed until the next change made here, or a restart. The
+ *     list ETags are only reliable when this instance is the only writer.</li>
+ * </ul>
+ */
+@Component
+@Profile("production")
+public class ChangeClock implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final long started = System.currentTimeMillis();
+    private final Map<Class<?>, Clock> clocks = new ConcurrentHashMap<>();
+
+    public ChangeClock(EntityManagerFactory entityManagerFactory) {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    public void changed(Class<?> type) {
+        Clock clock = clocks.computeIfAbsent(type, t -> new Clock());
+        clock.lastModified = System.currentTimeMillis();
+        clock.generation.incrementAndGet();
+    }
+
+    /**
+     * Counts a change made by a bulk statement of the current transaction once it commits, as the post-commit events
+     * do for entity changes, so no client is handed the new ETag along with the old rows.
+     */
+    public void changedOnCommit(Class<?>... types) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Arrays.stream(types).forEach(this::changed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Arrays.stream(types).forEach(ChangeClock.this::changed);
+            }
+        });
+    }
+
+    /**
+     * A strong ETag that changes whenever an entity of one of the types changes.
+     */
+    public String getETag(Class<?>... types) {
+        StringBuilder eTag = new StringBuilder("\"").append(Long.toHexString(started));
+        for (Class<?> type : types) {
+            Clock clock = clocks.get(type);
+            eTag.append('-').append(Long.toHexString(clock == null ? 0 : clock.generation.get()));
+        }
+        return eTag.append('"').toString();
+    }
+
+    /**
+     * Epoch millis of the last change to one of the types, or of the start of this instance.
+     */
+    public long getLastModified(Class<?>... types) {
+        long lastModified = started;
+        for (Class<?> type : types) {
+            Clock clock = clocks.get(type);
+            if (clock != null) {
+                lastModified = Math.max(lastModified, clock.lastModified);
+            }
+        }
+        return lastModified;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    private static final class Clock {
+        private final AtomicLong generation = new AtomicLong();
+        private volatile long lastModified;
+    }
+}
@@ -0,0 +1,294 @@
+package com.dev2ever.component;
+
+import com.dev2ever.api.rest.JsonChange;
+import com.dev2ever.model.AbstractEntity;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Committed inserts, updates and deletes of authors, books and purchases as a numbered sequence of events, for
+ * clients that keep a copy of the catalog in sync instead of polling the find/all listings. Entity changes are seen
+ * through Hibernate's post-commit events; bulk deletes bypass them and report their rows with
+ * {@link #deletedOnCommit}. Like {@link ChangeClock}, the feed only covers changes made through this instance.
+ * <p>
+ * The last {@code changes.feed.history} events are kept, so a client can resume from the cursor of the last event
+ * it received. A cursor includes the start time of the instance; one from an earlier instance, or one that has
+ * fallen out of the history, cannot be resumed and the subscription starts with a reset instead.
+ * <p>
+ * Each subscriber has a queue of {@code changes.feed.subscriber-buffer} events. Publishing never waits for a
+ * subscriber: one whose queue is full is dropped once it has received what is queued, and resumes from there when
+ * it reconnects.
+ */
+@Component
+@Profile("production")
+public class ChangeFeed implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    // wakes a subscriber waiting for events when it is dropped or the feed closes
+    private static final Event END = new Event(-1, null);
+
+    private final String instance = Long.toHexString(System.currentTimeMillis());
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ArrayDeque<Event> history = new ArrayDeque<>();
+    private long sequence;
+
+    private final int historySize;
+    private final int bufferSize;
+    private final int maxSubscribers;
+
+    public ChangeFeed(EntityManagerFactory entityManagerFactory,
+                      @Value("${changes.feed.history:10000}") int historySize,
+                      @Value("${changes.feed.subscriber-buffer:1000}") int bufferSize,
+                      @Value("${changes.feed.max-subscribers:100}") int maxSubscribers) {
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * Publishes the deletes of a bulk statement of the current transaction once it commits.
+     */
+    public void deletedOnCommit(Class<? extends AbstractEntity> type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> deleted = List.copyOf(ids);
+        Runnable publish = () -> deleted.forEach(id ->
+                publish(new JsonChange(type.getSimpleName(), id, null, JsonChange.Operation.DELETE)));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish.run();
+            }
+        });
+    }
+
+    /**
+     * @param cursor the cursor of the last event the client received, or null to start with a reset
+     * @param types  the entity types to receive, or null for all of them
+     * @return null when there are already {@code changes.feed.max-subscribers} subscribers
+     */
+    public Subscription subscribe(String cursor, Set<String> types) {
+        synchronized (history) {
+            if (subscriptions.size() >= maxSubscribers) {
+                return null;
+            }
+            long after = resumableSequence(cursor);
+            Subscription subscription = new Subscription(types, after < 0, cursor(sequence));
+            if (after >= 0) {
+                history.stream().filter(event -> event.sequence > after && subscription.accepts(event))
+                        .forEach(subscription.replay::add);
+            }
+            subscriptions.add(subscription);
+            return subscription;
+        }
+    }
+
+    private long resumableSequence(String cursor) {
+        if (cursor == null || !cursor.startsWith(instance + "-")) {
+            return -1;
+        }
+        try {
+            long after = Long.parseLong(cursor.substring(instance.length() + 1));
+            long oldest = history.isEmpty() ? sequence + 1 : history.getFirst().sequence;
+            return after >= oldest - 1 && after <= sequence ? after : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void publish(JsonChange change) {
+        synchronized (history) {
+            Event event = new Event(++sequence, change);
+            if (history.size() == historySize) {
+                history.removeFirst();
+            }
+            history.addLast(event);
+            subscriptions.forEach(subscription -> subscription.offer(event));
+        }
+    }
+
+    private String cursor(long sequence) {
+        return instance + "-" + sequence;
+    }
+
+    @PreDestroy
+    public void close() {
+        subscriptions.forEach(Subscription::end);
+    }
+
+    public int getSubscribers() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getPersister(), event.getEntity(), JsonChange.Operation.INSERT);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getPersister(), event.getEntity(), JsonChange.Operation.UPDATE);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getPersister(), event.getEntity(), JsonChange.Operation.DELETE);
+    }
+
+    private void publish(EntityPersister persister, Object entity, JsonChange.Operation operation) {
+        // ChangeClock asks for post-commit events of every entity, so they reach this listener too
+        if (!(entity instanceof AbstractEntity changed)) {
+            return;
+        }
+        publish(new JsonChange(persister.getMappedClass().getSimpleName(), changed.getId(), changed.getVersion(),
+                operation));
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return AbstractEntity.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    public record Event(long sequence, JsonChange change) {
+    }
+
+    /**
+     * The events of one client. Replayed events come first, then live ones. A listener, if set, is told when events
+     * are queued and when the subscription ends, on the publishing thread and so must not block.
+     */
+    public class Subscription implements AutoCloseable {
+
+        private final Set<String> types;
+        private final boolean reset;
+        private final ArrayDeque<Event> replay = new ArrayDeque<>();
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final String start;
+        private volatile boolean open = true;
+        private volatile Runnable listener;
+
+        private Subscription(Set<String> types, boolean reset, String start) {
+            this.types = types;
+            this.reset = reset;
+            this.start = start;
+        }
+
+        /**
+         * True when the client's cursor could not be resumed: it has to reload the catalog, after which the events
+         * of this subscription apply.
+         */
+        public boolean isReset() {
+            return reset;
+        }
+
+        /**
+         * The cursor of the last event published before this subscription started.
+         */
+        public String getStart() {
+            return start;
+        }
+
+        /**
+         * @return the next event, or null if there was none within the timeout or the subscription has ended
+         */
+        public Event next(long timeoutMillis) throws InterruptedException {
+            Event event = replay.pollFirst();
+            if (event == null) {
+                event = open ? queue.poll(timeoutMillis, TimeUnit.MILLISECONDS) : queue.poll();
+            }
+            return event == END ? null : event;
+        }
+
+        public void setListener(Runnable listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * False once the subscriber was dropped for falling behind or the feed closed; the events still queued can
+         * be read.
+         */
+        public boolean isOpen() {
+            return open;
+        }
+
+        public String cursor(Event event) {
+            return ChangeFeed.this.cursor(event.sequence);
+        }
+
+        private boolean accepts(Event event) {
+            return types == null || types.contains(event.change.type());
+        }
+
+        private void offer(Event event) {
+            if (!accepts(event)) {
+                return;
+            }
+            if (queue.offer(event)) {
+                notifyListener();
+            } else {
+                end();
+            }
+        }
+
+        private void end() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            subscriptions.remove(this);
+            queue.offer(END);
+            notifyListener();
+        }
+
+        private void notifyListener() {
+            Runnable notify = listener;
+            if (notify != null) {
+                notify.run();
+            }
+        }
+
+        @Override
+        public void close() {
+            end();
+        }
+    }
+}
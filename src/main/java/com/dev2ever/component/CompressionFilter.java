@@ -0,0 +1,237 @@
+package com.dev2ever.component;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips responses for clients that send {@code Accept-Encoding: gzip}, when {@code api.compression.enabled} is set and
+ * the content type is one of {@code api.compression.mime-types}. The decision is taken when the body is first
+ * written, so 304s and empty responses are left alone. The gzip stream is sync-flushed, so streamed NDJSON still
+ * reaches the client as it is written.
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+
+    @Value("${api.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("#{'${api.compression.mime-types:application/json,application/x-ndjson,text/plain}'.split(',')}")
+    private List<String> mimeTypes;
+
+    /**
+     * Also runs on the async dispatch of a request handled on another thread, which writes the body through the gzip
+     * stream of the first dispatch.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        GzipResponse gzipResponse = WebUtils.getNativeResponse(response, GzipResponse.class);
+        if (gzipResponse == null) {
+            if (!isAsyncDispatch(request)) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (!acceptsGzip(request)) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            gzipResponse = new GzipResponse(response);
+        }
+        try {
+            filterChain.doFilter(request, gzipResponse);
+        } finally {
+            if (!isAsyncStarted(request)) {
+                gzipResponse.finish();
+            }
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String mimeType = contentType.toLowerCase(Locale.ROOT);
+        return mimeTypes.stream().anyMatch(type -> mimeType.startsWith(type.trim()));
+    }
+
+    /**
+     * Holds back Content-Length until the body is written: it is dropped when the body gets compressed and passed on
+     * otherwise.
+     */
+    private final class GzipResponse extends HttpServletResponseWrapper {
+
+        private long contentLength = -1;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private GzipOutputStream gzip;
+
+        private GzipResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (outputStream == null) {
+                contentLength = len;
+            } else if (gzip == null) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream target = super.getOutputStream();
+                if (isCompressible(getContentType()) && !containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                    super.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    gzip = new GzipOutputStream(target);
+                    outputStream = gzip;
+                } else {
+                    if (contentLength >= 0) {
+                        super.setContentLengthLong(contentLength);
+                    }
+                    outputStream = target;
+                }
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (outputStream != null) {
+                outputStream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            contentLength = -1;
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (gzip != null) {
+                gzip.finish();
+            }
+        }
+    }
+
+    private static final class GzipOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream target;
+        private final GZIPOutputStream gzip;
+        private boolean closed;
+
+        private GzipOutputStream(ServletOutputStream target) throws IOException {
+            this.target = target;
+            this.gzip = new GZIPOutputStream(target, 8192, true);
+        }
+
+        private void finish() throws IOException {
+            if (!closed) {
+                gzip.finish();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            gzip.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            gzip.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            gzip.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                gzip.close();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.dev2ever.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Recently seen Idempotency-Key values and the id of the row each one created. The window is bounded in size and
+ * time; a key that has left it is still caught by the unique constraint on the row.
+ * <p>
+ * A key is claimed with a future before its row is created, and the database work runs outside the map, so a slow
+ * insert holds up retries of its own key only, never other keys that share a hash bin.
+ */
+@Component
+public class IdempotencyKeys {
+
+    // claimed by a write-behind purchase that has not been committed yet
+    private static final Long PENDING = -1L;
+
+    private final Cache<String, CompletableFuture<Long>> results;
+
+    public IdempotencyKeys(@Value("${buy.idempotency.max-size:100000}") long maxSize,
+                           @Value("${buy.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Returns the id remembered for the key, or creates it. Concurrent calls with the same key wait for the first
+     * one instead of creating a second row; if the first one fails, the next takes its turn.
+     *
+     * @return null while the key is claimed by a queued purchase that has not been committed yet
+     */
+    public Long resolve(String key, Supplier<Long> create) {
+        while (true) {
+            CompletableFuture<Long> claimed = new CompletableFuture<>();
+            CompletableFuture<Long> existing = results.asMap().putIfAbsent(key, claimed);
+            if (existing == null) {
+                return create(key, claimed, create);
+            }
+            try {
+                Long id = existing.join();
+                return PENDING.equals(id) ? null : id;
+            } catch (CompletionException | CancellationException e) {
+                // the call that claimed the key failed and gave it up
+            }
+        }
+    }
+
+    private Long create(String key, CompletableFuture<Long> claimed, Supplier<Long> create) {
+        try {
+            Long id = create.get();
+            claimed.complete(id);
+            return id;
+        } catch (RuntimeException | Error e) {
+            results.asMap().remove(key, claimed);
+            claimed.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return false when the key was already seen
+     */
+    public boolean claim(String key) {
+        return results.asMap().putIfAbsent(key, CompletableFuture.completedFuture(PENDING)) == null;
+    }
+
+    public void release(String key) {
+        results.invalidate(key);
+    }
+
+    public void remember(String key, Long id) {
+        results.put(key, CompletableFuture.completedFuture(id));
+    }
+}
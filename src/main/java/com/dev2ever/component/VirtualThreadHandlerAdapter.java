@@ -0,0 +1,58 @@
+package com.dev2ever.component;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Used instead of the default handler adapter when {@code app.virtual-threads.enabled} is set. Controller methods run
+ * as a {@link WebAsyncTask} on the virtual-thread request executor. Spring MVC then releases the container thread and
+ * writes the result after the async dispatch back to the container. Arguments are still resolved on the container
+ * thread. Blocking JDBC calls park a cheap virtual thread instead of a platform thread, so the connection pool becomes
+ * the effective limit on concurrent requests. Methods that already return an async type are left as they are.
+ */
+public class VirtualThreadHandlerAdapter extends RequestMappingHandlerAdapter {
+
+    private static final List<Class<?>> ASYNC_TYPES = List.of(Callable.class, WebAsyncTask.class, DeferredResult.class,
+            CompletionStage.class, ResponseBodyEmitter.class, StreamingResponseBody.class);
+
+    private final AsyncTaskExecutor requestExecutor;
+
+    public VirtualThreadHandlerAdapter(AsyncTaskExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        Class<?> returnType = handlerMethod.getReturnType().getParameterType();
+        if (ASYNC_TYPES.stream().anyMatch(type -> type.isAssignableFrom(returnType))) {
+            return super.createInvocableHandlerMethod(handlerMethod);
+        }
+        return new VirtualThreadHandlerMethod(handlerMethod);
+    }
+
+    private class VirtualThreadHandlerMethod extends ServletInvocableHandlerMethod {
+
+        VirtualThreadHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        /**
+         * The returned task is picked up by Spring MVC's own async support, as if the controller had returned it.
+         * Like a synchronous request it has no timeout, so streamed responses can stay open.
+         */
+        @Override
+        protected Object doInvoke(Object... args) {
+            return new WebAsyncTask<>(0L, requestExecutor, () -> super.doInvoke(args));
+        }
+    }
+}
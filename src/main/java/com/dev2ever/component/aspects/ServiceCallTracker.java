@@ -0,0 +1,70 @@
+package com.dev2ever.component.aspects;
+
+import com.dev2ever.component.metrics.LatencyHistogram;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Times every service method into a per-method {@link LatencyHistogram}. Only slow calls and a sample of the others
+ * are logged, and arguments are only turned into strings when FINE logging is enabled.
+ */
+@Aspect
+@Component
+public class ServiceCallTracker {
+
+    Logger logger = Logger.getLogger(ServiceCallTracker.class.getName());
+
+    private final Map<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Value("${tracing.slow-call-ms:500}")
+    private long slowCallMillis;
+
+    @Value("${tracing.sample-rate:0.0}")
+    private double sampleRate;
+
+    @Around("execution(* com.dev2ever.service.*.*(..))")
+    public Object trackServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            histograms.computeIfAbsent(method, m -> new LatencyHistogram()).record(elapsed);
+            if (elapsed >= TimeUnit.MILLISECONDS.toNanos(slowCallMillis)) {
+                log(Level.WARNING, "Slow call", joinPoint, elapsed);
+            } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                log(Level.INFO, "Sampled call", joinPoint, elapsed);
+            }
+        }
+    }
+
+    private void log(Level level, String kind, ProceedingJoinPoint joinPoint, long elapsed) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        String message = String.format("%s. Method name: %s. Time: %.3f ms", kind,
+                joinPoint.getSignature().toShortString(), elapsed / 1_000_000.0);
+        if (logger.isLoggable(Level.FINE)) {
+            message += ". Arguments: " + Arrays.toString(joinPoint.getArgs());
+        }
+        logger.log(level, message);
+    }
+
+    public Map<Method, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+}
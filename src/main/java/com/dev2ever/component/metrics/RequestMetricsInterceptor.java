@@ -0,0 +1,98 @@
+package com.dev2ever.component.metrics;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records request count, error count, in-flight requests and a latency histogram for every controller method. The
+ * route metrics are created once per handler method, so recording a request only touches counters. A request handled
+ * asynchronously is timed from its first dispatch to the completion of the async dispatch.
+ */
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+    private final Map<Method, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final LongAdder inFlight = new LongAdder();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+            routeOf(request, handlerMethod).inFlight.increment();
+            inFlight.increment();
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (handler instanceof HandlerMethod handlerMethod
+                && request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            RouteMetrics route = routeOf(request, handlerMethod);
+            route.latency.record(System.nanoTime() - start);
+            if (ex != null || response.getStatus() >= 500) {
+                route.errors.increment();
+            }
+            route.inFlight.decrement();
+            inFlight.decrement();
+        }
+    }
+
+    private RouteMetrics routeOf(HttpServletRequest request, HandlerMethod handlerMethod) {
+        RouteMetrics route = routes.get(handlerMethod.getMethod());
+        if (route == null) {
+            String pattern = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+            route = routes.computeIfAbsent(handlerMethod.getMethod(),
+                    m -> new RouteMetrics(request.getMethod() + " " + pattern));
+        }
+        return route;
+    }
+
+    public Collection<RouteMetrics> getRoutes() {
+        return routes.values();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public static class RouteMetrics {
+
+        private final String route;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+
+        RouteMetrics(String route) {
+            this.route = route;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getInFlight() {
+            return inFlight.sum();
+        }
+    }
+}
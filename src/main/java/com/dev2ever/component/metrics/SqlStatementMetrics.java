@@ -0,0 +1,257 @@
+package com.dev2ever.component.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Statement count and latency per query shape, fed by StatementMetricsDataSource. A shape is the SQL with literals
+ * replaced by {@code ?}, runs of parameters such as batch-fetch IN lists collapsed and whitespace normalized, so the
+ * same query with different arguments lands in one {@link LatencyHistogram}.
+ * <p>
+ * As a handler interceptor it also counts the statements of each request on the request thread: a select shape run
+ * {@code sql.n-plus-one-threshold} times or more by one request is logged and reported as a likely N+1. A shape with a
+ * collapsed parameter list is a batch fetch, which loads many rows per statement and repeats by design, so it is
+ * reported as a batch load and not warned about. The counts are kept with the request, and as a callable interceptor
+ * it carries them to the thread that runs an async handler.
+ */
+public class SqlStatementMetrics implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+
+    Logger logger = Logger.getLogger(SqlStatementMetrics.class.getName());
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final String PARAMETER_LIST_SHAPE = "?, ...";
+    private static final String OTHER_SHAPE = "(other statements)";
+    private static final String REQUEST_STATEMENTS = SqlStatementMetrics.class.getName() + ".statements";
+
+    private final Map<String, StatementShape> shapesBySql = new ConcurrentHashMap<>();
+    private final Map<String, StatementShape> shapes = new ConcurrentHashMap<>();
+    private final Map<String, RepeatedStatement> repeatedStatements = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<StatementShape, Integer>> requestStatements = new ThreadLocal<>();
+    private final LongAdder slowStatements = new LongAdder();
+
+    private final long slowStatementNanos;
+    private final int repeatThreshold;
+    private final int maxShapes;
+
+    /**
+     * @param maxShapes distinct shapes tracked before further ones are counted together, so ad hoc SQL cannot grow
+     *                  the maps without bound
+     */
+    public SqlStatementMetrics(long slowStatementMillis, int repeatThreshold, int maxShapes) {
+        this.slowStatementNanos = TimeUnit.MILLISECONDS.toNanos(slowStatementMillis);
+        this.repeatThreshold = repeatThreshold;
+        this.maxShapes = maxShapes;
+    }
+
+    public void record(String sql, long nanos, boolean failed) {
+        StatementShape shape = shapeOf(sql);
+        shape.latency.record(nanos);
+        if (failed) {
+            shape.errors.increment();
+        }
+        if (nanos >= slowStatementNanos) {
+            slowStatements.increment();
+            logger.warning(() -> String.format("Slow statement. Time: %.3f ms. SQL: %s", nanos / 1_000_000.0, sql));
+        }
+        Map<StatementShape, Integer> statements = requestStatements.get();
+        if (statements != null) {
+            statements.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    private StatementShape shapeOf(String sql) {
+        if (sql == null) {
+            sql = OTHER_SHAPE;
+        }
+        StatementShape shape = shapesBySql.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        String normalized = normalize(sql);
+        shape = shapes.size() < maxShapes || shapes.containsKey(normalized)
+                ? shapes.computeIfAbsent(normalized, StatementShape::new)
+                : shapes.computeIfAbsent(OTHER_SHAPE, StatementShape::new);
+        // Hibernate reuses a small set of SQL strings, so the raw-string lookup is the common path; it stops
+        // growing once ad hoc SQL has filled it.
+        if (shapesBySql.size() < maxShapes * 4) {
+            shapesBySql.put(sql, shape);
+        }
+        return shape;
+    }
+
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").strip();
+        return PARAMETER_LIST.matcher(shape).replaceAll(PARAMETER_LIST_SHAPE);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            requestStatements.set(statementsOf(request));
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<StatementShape, Integer> statementsOf(HttpServletRequest request) {
+        // the async dispatch of a request continues the counts of its first dispatch
+        Map<StatementShape, Integer> statements = (Map<StatementShape, Integer>) request.getAttribute(REQUEST_STATEMENTS);
+        if (statements == null) {
+            statements = new HashMap<>();
+            request.setAttribute(REQUEST_STATEMENTS, statements);
+        }
+        return statements;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        requestStatements.remove();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        Object statements = request.getAttribute(REQUEST_STATEMENTS, RequestAttributes.SCOPE_REQUEST);
+        if (statements != null) {
+            requestStatements.set((Map<StatementShape, Integer>) statements);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        requestStatements.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        endRequest(request);
+    }
+
+    private void endRequest(HttpServletRequest request) {
+        Map<StatementShape, Integer> statements = requestStatements.get();
+        if (statements == null) {
+            return;
+        }
+        requestStatements.remove();
+        for (Map.Entry<StatementShape, Integer> entry : statements.entrySet()) {
+            int executions = entry.getValue();
+            String sql = entry.getKey().sql;
+            if (executions >= repeatThreshold && sql.regionMatches(true, 0, "select", 0, 6)) {
+                String route = request.getMethod() + " "
+                        + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                boolean batchLoad = sql.contains(PARAMETER_LIST_SHAPE);
+                repeatedStatements.computeIfAbsent(route + '\n' + sql, key -> new RepeatedStatement(route, sql, batchLoad))
+                        .record(executions);
+                Level level = batchLoad ? Level.FINE : Level.WARNING;
+                if (logger.isLoggable(level)) {
+                    logger.log(level, String.format("%s. Route: %s. Executions: %d. SQL: %s",
+                            batchLoad ? "Repeated batch load" : "Possible N+1", route, executions, sql));
+                }
+            }
+        }
+    }
+
+    public Collection<StatementShape> getShapes() {
+        return shapes.values();
+    }
+
+    public Collection<RepeatedStatement> getRepeatedStatements() {
+        return repeatedStatements.values();
+    }
+
+    public long getSlowStatements() {
+        return slowStatements.sum();
+    }
+
+    public static class StatementShape {
+
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        StatementShape(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+
+    /**
+     * A select shape that one request of the route ran at least {@code sql.n-plus-one-threshold} times; a batch load
+     * when the shape has a collapsed parameter list, a likely N+1 otherwise.
+     */
+    public static class RepeatedStatement {
+
+        private final String route;
+        private final String sql;
+        private final boolean batchLoad;
+        private final LongAdder requests = new LongAdder();
+        private final LongAccumulator maxExecutions = new LongAccumulator(Math::max, 0);
+
+        RepeatedStatement(String route, String sql, boolean batchLoad) {
+            this.route = route;
+            this.sql = sql;
+            this.batchLoad = batchLoad;
+        }
+
+        void record(int executions) {
+            requests.increment();
+            maxExecutions.accumulate(executions);
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public boolean isBatchLoad() {
+            return batchLoad;
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getMaxExecutions() {
+            return maxExecutions.get();
+        }
+    }
+}
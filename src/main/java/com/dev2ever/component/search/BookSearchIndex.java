@@ -0,0 +1,288 @@
+package com.dev2ever.component.search;
+
+import com.dev2ever.api.rest.JsonBookHit;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over book title, author and publisher. Each normalized token maps to a posting list of book ids
+ * kept sorted in a primitive long[], next to a byte[] with the fields the token appears in. Every query term of at least
+ * minPrefixLength characters is matched as a prefix of the indexed tokens, a book must match all terms, and it is ranked by the fields it matched
+ * in (title over author over publisher) with exact token matches counting double.
+ */
+public class BookSearchIndex {
+
+    // field bits double as ranking weights
+    static final byte PUBLISHER = 1;
+    static final byte AUTHOR = 2;
+    static final byte TITLE = 4;
+
+    // a score is at most (TITLE | AUTHOR | PUBLISHER) * 2
+    private static final int SCORE_BITS = 4;
+    private static final long SCORE_MASK = (1L << SCORE_BITS) - 1;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final NavigableMap<String, Postings> tokens = new TreeMap<>();
+    private final Map<Long, JsonBookHit> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int minPrefixLength;
+
+    public BookSearchIndex(int minPrefixLength) {
+        this.minPrefixLength = minPrefixLength;
+    }
+
+    /**
+     * Adds the book, replacing what was indexed under the same id.
+     */
+    public void put(Long id, String title, String publisher, String author) {
+        JsonBookHit document = new JsonBookHit(id, title, publisher, author, 0);
+        lock.writeLock().lock();
+        try {
+            JsonBookHit previous = documents.put(id, document);
+            if (previous != null) {
+                fields(previous).keySet().forEach(token -> removePosting(token, id));
+            }
+            fields(document).forEach((token, fields) -> tokens.computeIfAbsent(token, t -> new Postings()).put(id, fields));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            JsonBookHit previous = documents.remove(id);
+            if (previous != null) {
+                fields(previous).keySet().forEach(token -> removePosting(token, id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            tokens.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<JsonBookHit> search(String query, int limit) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Hits hits = null;
+            for (String term : terms) {
+                Hits termHits = match(term);
+                hits = hits == null ? termHits : hits.intersect(termHits);
+                if (hits.size == 0) {
+                    return List.of();
+                }
+            }
+            return top(hits, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Books with a token starting with the term. The postings of all matching tokens are packed as
+     * {@code id << SCORE_BITS | score} into one long[], so a single primitive sort brings each book's entries
+     * together and the best of them is kept.
+     */
+    private Hits match(String term) {
+        // a term too short to narrow the catalog down only matches whole tokens
+        Collection<Map.Entry<String, Postings>> matches = term.length() < minPrefixLength
+                ? tokens.subMap(term, true, term, true).entrySet()
+                : tokens.subMap(term, true, term + Character.MAX_VALUE, false).entrySet();
+        int total = 0;
+        for (Map.Entry<String, Postings> entry : matches) {
+            total += entry.getValue().size;
+        }
+        long[] packed = new long[total];
+        int n = 0;
+        for (Map.Entry<String, Postings> entry : matches) {
+            Postings postings = entry.getValue();
+            int multiplier = entry.getKey().length() == term.length() ? 2 : 1;
+            for (int i = 0; i < postings.size; i++) {
+                packed[n++] = postings.ids[i] << SCORE_BITS | postings.fields[i] * multiplier;
+            }
+        }
+        Arrays.sort(packed);
+        Hits hits = new Hits(total);
+        for (long entry : packed) {
+            long id = entry >>> SCORE_BITS;
+            int score = (int) (entry & SCORE_MASK);
+            if (hits.size > 0 && hits.ids[hits.size - 1] == id) {
+                hits.scores[hits.size - 1] = score; // sorted ascending, so the last entry has the best score
+            } else {
+                hits.add(id, score);
+            }
+        }
+        return hits;
+    }
+
+    private List<JsonBookHit> top(Hits hits, int limit) {
+        // min-heap of the best hits so far, by score and then by the lowest id
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> hits.scores[a] != hits.scores[b]
+                ? Integer.compare(hits.scores[a], hits.scores[b]) : Long.compare(hits.ids[b], hits.ids[a]));
+        for (int i = 0; i < hits.size; i++) {
+            best.add(i);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        JsonBookHit[] result = new JsonBookHit[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            int hit = best.poll();
+            JsonBookHit document = documents.get(hits.ids[hit]);
+            result[i] = new JsonBookHit(document.id(), document.title(), document.publisher(), document.author(),
+                    hits.scores[hit]);
+        }
+        return Arrays.asList(result);
+    }
+
+    private void removePosting(String token, Long id) {
+        Postings postings = tokens.get(token);
+        if (postings != null && postings.remove(id) && postings.size == 0) {
+            tokens.remove(token);
+        }
+    }
+
+    private static Map<String, Byte> fields(JsonBookHit document) {
+        Map<String, Byte> fields = new HashMap<>();
+        addField(fields, document.title(), TITLE);
+        addField(fields, document.author(), AUTHOR);
+        addField(fields, document.publisher(), PUBLISHER);
+        return fields;
+    }
+
+    private static void addField(Map<String, Byte> fields, String text, byte field) {
+        tokenize(text).forEach(token -> fields.merge(token, field, (a, b) -> (byte) (a | b)));
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = isAscii(text) ? text
+                : DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Book ids in ascending order with the fields the token was found in. Ids are generated in ascending order, so
+     * new books are appended at the end.
+     */
+    private static final class Postings {
+        private long[] ids = new long[2];
+        private byte[] fields = new byte[2];
+        private int size;
+
+        private void put(long id, byte field) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                fields[index] = field;
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(fields, index, fields, index + 1, size - index);
+            ids[index] = id;
+            fields[index] = field;
+            size++;
+        }
+
+        private boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(fields, index + 1, fields, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * Scored book ids in ascending order.
+     */
+    private static final class Hits {
+        private final long[] ids;
+        private final int[] scores;
+        private int size;
+
+        private Hits(int capacity) {
+            ids = new long[capacity];
+            scores = new int[capacity];
+        }
+
+        /**
+         * Keeps the books matched by both terms, adding up their scores.
+         */
+        private Hits intersect(Hits other) {
+            Hits common = new Hits(Math.min(size, other.size));
+            int i = 0, j = 0;
+            while (i < size && j < other.size) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (other.ids[j] < ids[i]) {
+                    j++;
+                } else {
+                    common.add(ids[i], scores[i++] + other.scores[j++]);
+                }
+            }
+            return common;
+        }
+
+        private void add(long id, int score) {
+            ids[size] = id;
+            scores[size++] = score;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.dev2ever.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps the connection pool and records how long callers wait in {@code getConnection()} and how many are waiting
+ * right now, independently of the pool implementation behind it.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+
+    public InstrumentedDataSource(DataSource pool) {
+        super(pool);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            return super.getConnection();
+        } finally {
+            waiting.decrementAndGet();
+            record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            waiting.decrementAndGet();
+            record(System.nanoTime() - start);
+        }
+    }
+
+    private void record(long nanos) {
+        acquired.increment();
+        acquireNanos.add(nanos);
+        maxAcquireNanos.accumulate(nanos);
+    }
+
+    public PoolStatistics getStatistics() {
+        DataSource pool = obtainTargetDataSource();
+        int active = -1;
+        int idle = -1;
+        int maxTotal = -1;
+        if (pool instanceof BasicDataSource dbcp) {
+            active = dbcp.getNumActive();
+            idle = dbcp.getNumIdle();
+            maxTotal = dbcp.getMaxTotal();
+        } else if (pool instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean mxBean = hikari.getHikariPoolMXBean();
+            active = mxBean.getActiveConnections();
+            idle = mxBean.getIdleConnections();
+            maxTotal = hikari.getMaximumPoolSize();
+        }
+        long count = acquired.sum();
+        double meanAcquireMillis = count == 0 ? 0 : acquireNanos.sum() / (count * 1_000_000.0);
+        return new PoolStatistics(pool.getClass().getSimpleName(), active, idle, maxTotal, waiting.get(), count,
+                meanAcquireMillis, maxAcquireNanos.get() / 1_000_000.0);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    public record PoolStatistics(String pool, int active, int idle, int maxTotal, int waiting, long acquired,
+                                 double meanAcquireMillis, double maxAcquireMillis) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.dev2ever.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Builds the connection pool described by the {@code db.*} and {@code db.pool.*} properties. {@code db.pool.type}
+ * selects the implementation: {@code dbcp} (commons-dbcp2) or {@code hikari} (HikariCP). When {@code db.replica.url}
+ * is set, {@link #createReadWrite} adds a second pool of the same kind for the replica. Every connection starts in the
+ * {@code db.session-time-zone} time zone, UTC by default, so SQL date functions do not follow the server's zone.
+ */
+public final class PooledDataSourceFactory {
+
+    /**
+     * Replication lag of a PostgreSQL standby in ms. A standby that has replayed everything it received is current
+     * however old its last replayed transaction is, since the primary may simply not have written since; only while
+     * WAL is waiting to be replayed does the age of the last replayed transaction measure the lag.
+     */
+    static final String DEFAULT_LAG_QUERY = """
+            select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) end""";
+
+    private PooledDataSourceFactory() {
+    }
+
+    public static InstrumentedDataSource create(Environment env) {
+        return create(env, "db");
+    }
+
+    /**
+     * The primary pool alone, or a ReadWriteDataSource over the primary and replica pools when
+     * {@code db.replica.url} is set. The replica connects with the primary's driver and credentials unless
+     * {@code db.replica.username} / {@code db.replica.password} are given.
+     */
+    public static DataSource createReadWrite(Environment env) {
+        InstrumentedDataSource primary = create(env);
+        if (env.getProperty("db.replica.url", "").isBlank()) {
+            return primary;
+        }
+        InstrumentedDataSource replica = create(env, "db.replica");
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica,
+                env.getProperty("db.replica.lag-query", DEFAULT_LAG_QUERY),
+                env.getProperty("db.replica.max-lag-ms", Long.class, 1000L),
+                env.getProperty("db.replica.lag-check-ms", Long.class, 1000L));
+        return new ReadWriteDataSource(primary, replica, monitor);
+    }
+
+    private static InstrumentedDataSource create(Environment env, String prefix) {
+        DataSource pool = switch (env.getProperty("db.pool.type", "dbcp")) {
+            case "dbcp" -> createDbcp(env, prefix);
+            case "hikari" -> createHikari(env, prefix);
+            default -> throw new IllegalArgumentException("Unknown db.pool.type: " + env.getProperty("db.pool.type"));
+        };
+        return new InstrumentedDataSource(pool);
+    }
+
+    private static String connectionProperty(Environment env, String prefix, String name) {
+        return env.getProperty(prefix + "." + name, env.getRequiredProperty("db." + name));
+    }
+
+    private static String sessionTimeZoneSql(Environment env) {
+        return "set time zone '" + ZoneId.of(env.getProperty("db.session-time-zone", "UTC")).getId() + "'";
+    }
+
+    private static DataSource createDbcp(Environment env, String prefix) {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setDriverClassName(connectionProperty(env, prefix, "driver"));
+        dataSource.setUrl(env.getRequiredProperty(prefix + ".url"));
+        dataSource.setUsername(connectionProperty(env, prefix, "username"));
+        dataSource.setPassword(connectionProperty(env, prefix, "password"));
+        dataSource.setConnectionInitSqls(List.of(sessionTimeZoneSql(env)));
+        dataSource.setInitialSize(env.getProperty("db.pool.initial-size", Integer.class, 5));
+        dataSource.setMinIdle(env.getProperty("db.pool.min-idle", Integer.class, 5));
+        dataSource.setMaxIdle(env.getProperty("db.pool.max-idle", Integer.class, 10));
+        dataSource.setMaxTotal(env.getProperty("db.pool.max-total", Integer.class, 10));
+        dataSource.setMaxWait(Duration.ofMillis(env.getProperty("db.pool.max-wait-ms", Long.class, 5000L)));
+        dataSource.setTestOnBorrow(env.getProperty("db.pool.test-on-borrow", Boolean.class, true));
+        dataSource.setValidationQueryTimeout(Duration.ofMillis(env.getProperty("db.pool.validation-timeout-ms", Long.class, 3000L)));
+        dataSource.setPoolPreparedStatements(env.getProperty("db.pool.prepared-statements", Boolean.class, true));
+        dataSource.setMaxOpenPreparedStatements(env.getProperty("db.pool.max-open-prepared-statements", Integer.class, 100));
+        long leakDetectionMillis = env.getProperty("db.pool.leak-detection-ms", Long.class, 0L);
+        if (leakDetectionMillis > 0) {
+            dataSource.setRemoveAbandonedOnMaintenance(true);
+            dataSource.setRemoveAbandonedTimeout(Duration.ofMillis(leakDetectionMillis));
+            dataSource.setDurationBetweenEvictionRuns(Duration.ofMillis(leakDetectionMillis));
+            dataSource.setLogAbandoned(true);
+        }
+        return dataSource;
+    }
+
+    private static DataSource createHikari(Environment env, String prefix) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(prefix.equals("db") ? "virtual-store-books" : "virtual-store-books-replica");
+        config.setDriverClassName(connectionProperty(env, prefix, "driver"));
+        config.setJdbcUrl(env.getRequiredProperty(prefix + ".url"));
+        config.setUsername(connectionProperty(env, prefix, "username"));
+        config.setPassword(connectionProperty(env, prefix, "password"));
+        config.setConnectionInitSql(sessionTimeZoneSql(env));
+        config.setMinimumIdle(env.getProperty("db.pool.min-idle", Integer.class, 5));
+        config.setMaximumPoolSize(env.getProperty("db.pool.max-total", Integer.class, 10));
+        config.setConnectionTimeout(env.getProperty("db.pool.max-wait-ms", Long.class, 5000L));
+        config.setValidationTimeout(env.getProperty("db.pool.validation-timeout-ms", Long.class, 3000L));
+        config.setLeakDetectionThreshold(env.getProperty("db.pool.leak-detection-ms", Long.class, 0L));
+        // HikariCP does not pool statements itself; PgJDBC keeps its own per-connection prepared statement cache
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,61 @@
+package com.dev2ever.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary. The connection is only taken
+ * from a pool on the first statement, after the transaction manager has marked it read-only, so
+ * {@code @Transactional(readOnly = true)} service and repository methods are the ones that reach the replica. While
+ * the ReplicaLagMonitor reports the replica as lagging or down, read-only transactions use the primary as well.
+ */
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final InstrumentedDataSource primary;
+    private final InstrumentedDataSource replica;
+    private final ReplicaLagMonitor monitor;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+
+    public ReadWriteDataSource(InstrumentedDataSource primary, InstrumentedDataSource replica, ReplicaLagMonitor monitor) {
+        super(primary);
+        this.primary = primary;
+        this.replica = replica;
+        this.monitor = monitor;
+        setReadOnlyDataSource(new DelegatingDataSource(replica) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (monitor.isUsable()) {
+                    replicaReads.increment();
+                    return replica.getConnection();
+                }
+                fallbackReads.increment();
+                return primary.getConnection();
+            }
+        });
+    }
+
+    public RoutingStatistics getStatistics() {
+        return new RoutingStatistics(primary.getStatistics(), replica.getStatistics(), monitor.isUsable(),
+                monitor.getLagMillis(), replicaReads.sum(), fallbackReads.sum());
+    }
+
+    @Override
+    public void close() throws Exception {
+        monitor.close();
+        replica.close();
+        primary.close();
+    }
+
+    /**
+     * @param fallbackReads read-only transactions served by the primary because the replica was not usable
+     */
+    public record RoutingStatistics(InstrumentedDataSource.PoolStatistics primary,
+                                    InstrumentedDataSource.PoolStatistics replica, boolean replicaUsable,
+                                    long replicaLagMillis, long replicaReads, long fallbackReads) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.dev2ever.datasource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Polls the replica with {@code db.replica.lag-query}, which must return the replication lag in milliseconds, and
+ * marks the replica unusable while the lag is above {@code db.replica.max-lag-ms} or the query fails.
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(ReplicaLagMonitor.class.getName());
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean usable;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagMillis, long checkMillis) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-lag").daemon().factory());
+        check();
+        scheduler.scheduleWithFixedDelay(this::check, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * @return the last measured lag, or -1 when the replica could not be queried
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    private void check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            lagMillis = resultSet.next() ? resultSet.getLong(1) : 0;
+            boolean wasUsable = usable;
+            usable = lagMillis <= maxLagMillis;
+            if (wasUsable != usable) {
+                logger.info(() -> "Replica " + (usable ? "back in use" : "bypassed") + ", lag " + lagMillis + " ms");
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (usable || lagMillis != -1) {
+                logger.log(Level.WARNING, "Replica unreachable, reading from the primary", e);
+            }
+            lagMillis = -1;
+            usable = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,134 @@
+package com.dev2ever.datasource;
+
+import com.dev2ever.component.metrics.SqlStatementMetrics;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times every statement execution and reports it to {@link SqlStatementMetrics} with the SQL it was prepared with.
+ * Connections and statements are JDK proxies over the pool's own objects; only the {@code execute*} calls are timed,
+ * everything else is passed straight through. A JDBC batch is recorded as one execution of its statement.
+ */
+public class StatementMetricsDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final SqlStatementMetrics metrics;
+
+    public StatementMetricsDataSource(DataSource dataSource, SqlStatementMetrics metrics) {
+        super(dataSource);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable dataSource) {
+            dataSource.close();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementMetricsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Hibernate keys its open statements by the statement objects, so a proxy must be equal to itself rather than
+     * forward {@code equals} to the wrapped object.
+     */
+    private static boolean isIdentityMethod(Method method) {
+        return method.getDeclaringClass() == Object.class
+                && (method.getName().equals("equals") || method.getName().equals("hashCode"));
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            Object result = StatementMetricsDataSource.invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String prepared ? prepared : null;
+                return StatementMetricsDataSource.proxy(method.getReturnType(), new StatementHandler(statement, sql, (Connection) proxy));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private final Connection connection;
+        private String batchSql;
+
+        StatementHandler(Statement statement, String preparedSql, Connection connection) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return connection;
+            }
+            if (name.equals("addBatch") && args != null && args[0] instanceof String sql) {
+                batchSql = sql;
+            }
+            if (!name.startsWith("execute")) {
+                return StatementMetricsDataSource.invoke(statement, method, args);
+            }
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String executed ? executed : batchSql;
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = StatementMetricsDataSource.invoke(statement, method, args);
+                failed = false;
+                return result;
+            } finally {
+                metrics.record(sql, System.nanoTime() - start, failed);
+            }
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.dev2ever.model;
 
 import jakarta.persistence.*;
+import lombok.Getter;
+import org.hibernate.Hibernate;
 
 import java.io.Serializable;
-import java.util.Objects;
 
 @MappedSuperclass
+@Getter
 public class AbstractEntity implements Serializable {
 
     @Id
+    // Hibernate's default for SEQUENCE: one <Entity>_SEQ sequence per entity, allocation size 50 with the pooled
+    // optimizer, so a block of ids is reserved per round trip
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
     @Column(name = "Id", nullable = false)
     private Long id;
@@ -17,16 +21,23 @@ public class AbstractEntity implements Serializable {
     @Column(name = "OptLock")
     private Integer version;
 
+    /**
+     * Entities are equal when they are of the same entity class and have the same id, so an entity equals its own
+     * Hibernate proxy and comparing never loads a lazy association. Entities without an id are only equal to themselves.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (!(o instanceof AbstractEntity that)) return false;
-        return Objects.equals(id, that.id) && Objects.equals(version, that.version);
+        if (!(o instanceof AbstractEntity that) || Hibernate.getClass(this) != Hibernate.getClass(that)) return false;
+        return id != null && id.equals(that.getId());
     }
 
+    /**
+     * Per entity class rather than per id, so it does not change when a new entity gets its id on persist.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(id, version);
+        return Hibernate.getClass(this).hashCode();
     }
 
     @Override
@@ -2,15 +2,17 @@ package com.dev2ever.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
-
-import java.util.Objects;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table
+@Table(indexes = @Index(name = "idx_author_last_name", columnList = "lastName, name"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author")
 @Setter
 @Getter
 @ToString
@@ -37,18 +39,4 @@ public class Author extends AbstractEntity  {
 
     public Author() {
     }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof Author author)) return false;
-        if (!super.equals(o)) return false;
-        return Objects.equals(name, author.name) && Objects.equals(lastName, author.lastName) && Objects.equals(email,
-                author.email) && Objects.equals(phone, author.phone);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(super.hashCode(), name, lastName, email, phone);
-    }
 }
@@ -4,22 +4,30 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
-import java.util.Objects;
 
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_book_author", columnList = "author_Id"),
+        @Index(name = "idx_book_title", columnList = "title")})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
+@NamedEntityGraph(name = Book.WITH_AUTHOR, attributeNodes = @NamedAttributeNode("author"))
 @Setter
 @Getter
 @ToString
 public class Book extends AbstractEntity {
 
+    public static final String WITH_AUTHOR = "Book.withAuthor";
+
     @Column(nullable = false)
     public String title;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(nullable = false)
+    @ToString.Exclude
     public Author author;
 
     @Column()
@@ -30,18 +38,4 @@ public class Book extends AbstractEntity {
 
     @Column()
     public BigDecimal price;
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        Book book = (Book) o;
-        return Objects.equals(title, book.title) && Objects.equals(author, book.author) && Objects.equals(publisher, book.publisher) && Objects.equals(year, book.year) && Objects.equals(price, book.price);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(super.hashCode(), title, author, publisher, year, price);
-    }
 }
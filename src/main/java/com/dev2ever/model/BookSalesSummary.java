@@ -0,0 +1,44 @@
+package com.dev2ever.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Running sales totals of one book, keyed by the book id. Rows are only changed by adding deltas (see
+ * ServiceBookSales), so there is no version column.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_book_sales_summary_revenue", columnList = "revenue"))
+@Setter
+@Getter
+@ToString
+public class BookSalesSummary implements Serializable {
+
+    @Id
+    @Column(name = "IdBook", nullable = false)
+    private Long idBook;
+
+    @Column(nullable = false)
+    private long purchases;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal units;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    public BookSalesSummary() {
+    }
+
+    public BookSalesSummary(Long idBook, long purchases, BigDecimal units, BigDecimal revenue) {
+        this.idBook = idBook;
+        this.purchases = purchases;
+        this.units = units;
+        this.revenue = revenue;
+    }
+}
@@ -6,15 +6,22 @@ import lombok.Setter;
 import lombok.ToString;
 
 import java.math.BigDecimal;
-import java.util.Objects;
+import java.time.Instant;
 
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_buy_purchased_at", columnList = "purchasedAt"),
+        @Index(name = "idx_buy_book", columnList = "book_Id")})
+@NamedEntityGraph(name = Buy.WITH_BOOK_AND_AUTHOR,
+        attributeNodes = @NamedAttributeNode(value = "book", subgraph = "book"),
+        subgraphs = @NamedSubgraph(name = "book", attributeNodes = @NamedAttributeNode("author")))
 @Setter
 @Getter
 @ToString
 public class Buy extends AbstractEntity{
 
+    public static final String WITH_BOOK_AND_AUTHOR = "Buy.withBookAndAuthor";
+
     @Column(nullable = false)
     private BigDecimal amount;
 
@@ -24,21 +31,15 @@ public class Buy extends AbstractEntity{
     @Column(nullable = false)
     private BigDecimal price;
 
-    @ManyToOne
+    @Column(nullable = false)
+    private Instant purchasedAt;
+
+    // client supplied Idempotency-Key, unique so a retried submission can never insert a second row
+    @Column(unique = true)
+    private String idempotencyKey;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn()
+    @ToString.Exclude
     private Book book;
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        Buy buy = (Buy) o;
-        return Objects.equals(amount, buy.amount) && Objects.equals(description, buy.description) && Objects.equals(price, buy.price) && Objects.equals(book, buy.book);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(super.hashCode(), amount, description, price, book);
-    }
 }
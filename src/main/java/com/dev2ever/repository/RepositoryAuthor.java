@@ -1,12 +1,50 @@
 package com.dev2ever.repository;
 
+import com.dev2ever.api.rest.JsonAuthorView;
 import com.dev2ever.model.Author;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 @Profile("production")
 public interface RepositoryAuthor extends JpaRepository<Author, Long> {
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Author> findAll();
+
+    @Query("select concat(str(a.id), '.', str(a.version)) from Author a where a.id = :id")
+    Optional<String> findVersionTagById(@Param("id") Long id);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonAuthorView(a.id, a.version, a.name, a.lastName, a.email, a.phone)
+            from Author a
+            where a.id > :after
+            order by a.id""")
+    List<JsonAuthorView> findViews(@Param("after") long after, Limit limit);
+
+    @Query("select a.id from Author a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Author a where a.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    List<Author> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Author> streamAllByOrderByIdAsc();
 }
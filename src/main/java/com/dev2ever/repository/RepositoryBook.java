@@ -1,11 +1,76 @@
 package com.dev2ever.repository;
 
+import com.dev2ever.api.rest.JsonBookView;
 import com.dev2ever.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 @Profile("production")
 public interface RepositoryBook extends JpaRepository<Book, Long> {
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Book> findAll();
+
+    /**
+     * The versions the find/id representation is made of (book and author), without loading either entity.
+     */
+    @Query("select concat(str(b.id), '.', str(b.version), '.', str(a.id), '.', str(a.version)) from Book b join b.author a where b.id = :id")
+    Optional<String> findVersionTagById(@Param("id") Long id);
+
+    // Read views projected straight from the columns they need, without managed entities
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonBookView(b.id, b.version, b.title, b.publisher, b.year, b.price,
+                a.id, a.name, a.lastName)
+            from Book b join b.author a
+            where b.id > :after
+            order by b.id""")
+    List<JsonBookView> findFlatViews(@Param("after") long after, Limit limit);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonBookView(b.id, b.version, b.title, b.publisher, b.year, b.price,
+                b.author.id, cast(null as String), cast(null as String))
+            from Book b
+            where b.id > :after
+            order by b.id""")
+    List<JsonBookView> findRefViews(@Param("after") long after, Limit limit);
+
+    // Set-based deletes: one statement whatever the number of books, without loading them. Hibernate evicts the
+    // book cache region and the cached queries on Book after each of them.
+
+    @Query("select b.id from Book b where b.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.id from Book b where b.author.id in :idAuthors")
+    List<Long> findIdsByAuthorIds(@Param("idAuthors") Collection<Long> idAuthors);
+
+    @Modifying
+    @Query("delete from Book b where b.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(Book.WITH_AUTHOR)
+    List<Book> findByAuthorId(Long idAuthor);
+
+    @EntityGraph(Book.WITH_AUTHOR)
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    @EntityGraph(Book.WITH_AUTHOR)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Book> streamAllByOrderByIdAsc();
 }
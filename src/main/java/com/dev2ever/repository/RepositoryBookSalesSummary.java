@@ -0,0 +1,40 @@
+package com.dev2ever.repository;
+
+import com.dev2ever.model.BookSalesSummary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+@Profile("production")
+public interface RepositoryBookSalesSummary extends JpaRepository<BookSalesSummary, Long> {
+
+    @Modifying
+    @Query("""
+            update BookSalesSummary s
+            set s.purchases = s.purchases + :purchases, s.units = s.units + :units, s.revenue = s.revenue + :revenue
+            where s.idBook = :idBook""")
+    int addSales(@Param("idBook") Long idBook, @Param("purchases") long purchases,
+                 @Param("units") BigDecimal units, @Param("revenue") BigDecimal revenue);
+
+    List<BookSalesSummary> findAllByOrderByRevenueDesc(Limit limit);
+
+    /**
+     * Totals per book recomputed from the purchases, rounding each purchase's revenue to the cent like the counters.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert into BookSalesSummary (IdBook, purchases, units, revenue)
+            select book_Id, count(*), sum(amount), sum(round(amount * price, 2))
+            from Buy
+            where book_Id is not null
+            group by book_Id""")
+    int insertTotalsFromBuys();
+}
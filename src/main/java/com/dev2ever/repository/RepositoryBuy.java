@@ -1,11 +1,155 @@
 package com.dev2ever.repository;
 
+import com.dev2ever.api.rest.JsonAuthorSales;
+import com.dev2ever.api.rest.JsonBookSales;
+import com.dev2ever.api.rest.JsonBuyView;
+import com.dev2ever.api.rest.JsonPeriodSales;
+import com.dev2ever.api.rest.JsonPublisherSales;
 import com.dev2ever.model.Buy;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 @Profile("production")
 public interface RepositoryBuy extends JpaRepository<Buy, Long> {
+
+    @EntityGraph(Buy.WITH_BOOK_AND_AUTHOR)
+    Optional<Buy> findWithBookAndAuthorById(Long id);
+
+    @Query("select b from Buy b left join fetch b.book bk left join fetch bk.author")
+    List<Buy> findAllWithBookAndAuthor();
+
+    @Query("select b.id from Buy b where b.idempotencyKey = :idempotencyKey")
+    Optional<Long> findIdByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
+
+    // Read views projected straight from the columns they need, without managed entities
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonBuyView(b.id, b.version, b.amount, b.price, b.description,
+                b.purchasedAt, bk.id, bk.title)
+            from Buy b left join b.book bk
+            where b.id > :after
+            order by b.id""")
+    List<JsonBuyView> findFlatViews(@Param("after") long after, Limit limit);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonBuyView(b.id, b.version, b.amount, b.price, b.description,
+                b.purchasedAt, b.book.id, cast(null as String))
+            from Buy b
+            where b.id > :after
+            order by b.id""")
+    List<JsonBuyView> findRefViews(@Param("after") long after, Limit limit);
+
+    @EntityGraph(Buy.WITH_BOOK_AND_AUTHOR)
+    List<Buy> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    @EntityGraph(Buy.WITH_BOOK_AND_AUTHOR)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Buy> streamAllByOrderByIdAsc();
+
+    // Set-based deletes, each preceded by the ids of the purchases it is about to delete, for the change feed, and
+    // by their totals per book. Purchases without a book are totalled under a null idBook, so the totals always add
+    // up to the rows deleted.
+
+    @Query("select b.id from Buy b where b.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.id from Buy b where b.purchasedAt < :before")
+    List<Long> findIdsPurchasedBefore(@Param("before") Instant before);
+
+    @Query("select b.id from Buy b where b.book.id in :idBooks")
+    List<Long> findIdsByBookIds(@Param("idBooks") Collection<Long> idBooks);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonBookSales(bk.id, bk.title, count(b), sum(b.amount), sum(b.amount * b.price))
+            from Buy b left join b.book bk
+            where b.id in :ids
+            group by bk.id, bk.title""")
+    List<JsonBookSales> salesByBookOfIds(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonBookSales(bk.id, bk.title, count(b), sum(b.amount), sum(b.amount * b.price))
+            from Buy b left join b.book bk
+            where b.purchasedAt < :before
+            group by bk.id, bk.title""")
+    List<JsonBookSales> salesByBookPurchasedBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from Buy b where b.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Buy b where b.purchasedAt < :before")
+    int deletePurchasedBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from Buy b where b.book.id in :idBooks")
+    int deleteByBookIds(@Param("idBooks") Collection<Long> idBooks);
+
+    // Sales reports: units is the sum of Buy.amount and revenue the sum of amount * price
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonBookSales(bk.id, bk.title, count(b), sum(b.amount), sum(b.amount * b.price))
+            from Buy b join b.book bk
+            where b.purchasedAt >= :from and b.purchasedAt < :to
+            group by bk.id, bk.title
+            order by sum(b.amount * b.price) desc""")
+    List<JsonBookSales> salesByBook(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonAuthorSales(a.id, a.name, a.lastName, count(b), sum(b.amount), sum(b.amount * b.price))
+            from Buy b join b.book bk join bk.author a
+            where b.purchasedAt >= :from and b.purchasedAt < :to
+            group by a.id, a.name, a.lastName
+            order by sum(b.amount * b.price) desc""")
+    List<JsonAuthorSales> salesByAuthor(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonPublisherSales(bk.publisher, count(b), sum(b.amount), sum(b.amount * b.price))
+            from Buy b join b.book bk
+            where b.purchasedAt >= :from and b.purchasedAt < :to
+            group by bk.publisher
+            order by sum(b.amount * b.price) desc""")
+    List<JsonPublisherSales> salesByPublisher(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Time buckets start at the truncated purchase time, in the time zone of the database session (db.session-time-zone)
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonPeriodSales(trunc(b.purchasedAt, day), count(b), sum(b.amount), sum(b.amount * b.price))
+            from Buy b
+            where b.purchasedAt >= :from and b.purchasedAt < :to
+            group by trunc(b.purchasedAt, day)
+            order by trunc(b.purchasedAt, day)""")
+    List<JsonPeriodSales> salesByDay(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonPeriodSales(trunc(b.purchasedAt, month), count(b), sum(b.amount), sum(b.amount * b.price))
+            from Buy b
+            where b.purchasedAt >= :from and b.purchasedAt < :to
+            group by trunc(b.purchasedAt, month)
+            order by trunc(b.purchasedAt, month)""")
+    List<JsonPeriodSales> salesByMonth(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("""
+            select new com.dev2ever.api.rest.JsonPeriodSales(trunc(b.purchasedAt, year), count(b), sum(b.amount), sum(b.amount * b.price))
+            from Buy b
+            where b.purchasedAt >= :from and b.purchasedAt < :to
+            group by trunc(b.purchasedAt, year)
+            order by trunc(b.purchasedAt, year)""")
+    List<JsonPeriodSales> salesByYear(@Param("from") Instant from, @Param("to") Instant to);
 }
@@ -1,25 +0,0 @@
-package com.dev2ever.sample;
-
-import com.dev2ever.BeanInfo;
-import lombok.Getter;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Profile;
-import org.springframework.stereotype.Component;
-
-@Getter
-@Component
-@Profile("test")
-public class JpaProperties extends BeanInfo {
-
-    @Value("${db.driver}")
-    private String driver;
-
-    @Value("${db.url}")
-    private String url;
-
-    @Value("${db.username}")
-    private String username;
-
-    @Value("${db.password}")
-    private String password;
-}
@@ -1,38 +1,156 @@
 package com.dev2ever.service;
 
+import com.dev2ever.api.rest.JsonAuthorView;
+import com.dev2ever.api.rest.JsonDeleted;
+import com.dev2ever.component.ChangeClock;
+import com.dev2ever.component.ChangeFeed;
 import com.dev2ever.model.Author;
 import com.dev2ever.repository.RepositoryAuthor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Read-only transactions unless a method says otherwise, like {@link ServiceBook}.
+ */
 @Service
 @Profile("production")
+@Transactional(readOnly = true)
 public class ServiceAuthor {
 
     private final RepositoryAuthor repositoryAuthor;
+    private final ServiceBook serviceBook;
+    private final ServiceBookSearch serviceBookSearch;
+    private final ChangeClock changeClock;
+    private final ChangeFeed changeFeed;
 
-    public ServiceAuthor(RepositoryAuthor repositoryAuthor) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${api.page.max-limit:500}")
+    private int maxPageLimit;
+
+    public ServiceAuthor(RepositoryAuthor repositoryAuthor, ServiceBook serviceBook,
+                         ServiceBookSearch serviceBookSearch, ChangeClock changeClock, ChangeFeed changeFeed) {
         this.repositoryAuthor = repositoryAuthor;
+        this.serviceBook = serviceBook;
+        this.serviceBookSearch = serviceBookSearch;
+        this.changeClock = changeClock;
+        this.changeFeed = changeFeed;
     }
 
+    /**
+     * Inserts a new author, or updates an existing one like {@link #update} when the author has an id.
+     */
+    @Transactional
     public void save(Author author) {
+        if (author.getId() != null) {
+            update(author);
+            return;
+        }
         repositoryAuthor.save(author);
     }
 
+    @Transactional
     public void deleteById(Long id) {
-        repositoryAuthor.deleteById(id);
+        deleteByIds(List.of(id));
     }
 
+    /**
+     * Deletes the authors with all their books and the purchases of those, see {@link ServiceBook#deleteByIds}.
+     */
+    @Transactional
+    public JsonDeleted deleteByIds(Collection<Long> ids) {
+        List<Long> existing = ids.isEmpty() ? List.of() : repositoryAuthor.findExistingIds(ids);
+        if (existing.isEmpty()) {
+            return new JsonDeleted(0, 0, 0);
+        }
+        JsonDeleted books = serviceBook.deleteByAuthorIds(existing);
+        int authors = repositoryAuthor.deleteByIds(existing);
+        changeFeed.deletedOnCommit(Author.class, existing);
+        changeClock.changedOnCommit(Author.class);
+        return new JsonDeleted(authors, books.books(), books.buys());
+    }
+
+    /**
+     * Saves the author and, once that commits, updates the search entries of the author's books with the new name.
+     */
+    @Transactional
     public void update(Author author) {
         repositoryAuthor.save(author);
+        serviceBookSearch.indexByAuthorId(author.getId());
+    }
+
+    /**
+     * @return the ETag of the author as served by find/id, or null when there is no such author
+     */
+    public String getETag(Long id) {
+        return repositoryAuthor.findVersionTagById(id).map(tag -> '"' + tag + '"').orElse(null);
     }
 
     public Author getById(Long id) {
         return repositoryAuthor.findById(id).orElse(null);
     }
+
+    /**
+     * The authors with the given ids, in the same order and null where there is no such author. Cached authors are
+     * not queried; the others are read with a single IN query.
+     */
+    public List<Author> getByIds(List<Long> ids) {
+        return entityManager.unwrap(Session.class).byMultipleIds(Author.class)
+                .with(CacheMode.NORMAL)
+                .withBatchSize(ids.size())
+                .multiLoad(ids);
+    }
+
+    @Transactional
     public List<Author> getAll() {
+        readFromPrimary();
         return repositoryAuthor.findAll();
     }
+
+    @Transactional
+    public List<Author> getPage(long after, int limit) {
+        readFromPrimary();
+        return repositoryAuthor.findByIdGreaterThanOrderByIdAsc(after, Limit.of(Math.clamp(limit, 1, maxPageLimit)));
+    }
+
+    /**
+     * Read views of the authors after the given id; a null limit reads them all.
+     */
+    @Transactional
+    public List<JsonAuthorView> getViews(long after, Integer limit) {
+        readFromPrimary();
+        return repositoryAuthor.findViews(after, limit == null ? Limit.unlimited() : Limit.of(Math.clamp(limit, 1, maxPageLimit)));
+    }
+
+    /**
+     * Keeps the lists tagged with the ChangeClock ETag on the primary, see {@code ServiceBook.readFromPrimary}.
+     */
+    private void readFromPrimary() {
+        Session session = entityManager.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+    }
+
+    public void streamAll(Consumer<Author> consumer) {
+        try (Stream<Author> authors = repositoryAuthor.streamAllByOrderByIdAsc()) {
+            authors.forEach(author -> {
+                consumer.accept(author);
+                entityManager.detach(author);
+            });
+        }
+    }
 }
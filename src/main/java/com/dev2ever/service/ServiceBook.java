@@ -1,44 +1,236 @@
 package com.dev2ever.service;
 
 import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonDeleted;
+import com.dev2ever.api.rest.JsonBookView;
+import com.dev2ever.api.rest.ViewShape;
+import com.dev2ever.component.ChangeClock;
+import com.dev2ever.component.ChangeFeed;
 import com.dev2ever.model.Author;
 import com.dev2ever.model.Book;
+import com.dev2ever.model.Buy;
 import com.dev2ever.repository.RepositoryAuthor;
 import com.dev2ever.repository.RepositoryBook;
+import com.dev2ever.repository.RepositoryBuy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Every public method runs in exactly one transaction. The class default is read-only, for which Spring's
+ * HibernateJpaDialect puts the session in {@code FlushMode.MANUAL} and loads entities read-only, so queries skip the
+ * auto-flush, dirty checking and snapshot copies, and the connection can be served by the read replica. Methods that
+ * write are annotated {@code @Transactional} on their own, so a multi-step write such as the author lookup and insert
+ * of {@link #save} commits or rolls back as a unit.
+ */
 @Service
 @Profile("production")
+@Transactional(readOnly = true)
 public class ServiceBook {
 
     private final RepositoryBook repositoryBook;
     private final RepositoryAuthor repositoryAuthor;
+    private final ServiceBookSearch serviceBookSearch;
+    private final RepositoryBuy repositoryBuy;
+    private final ServiceBookSales serviceBookSales;
+    private final ChangeClock changeClock;
+    private final ChangeFeed changeFeed;
 
-    public ServiceBook(RepositoryBook repositoryBook, RepositoryAuthor repositoryAuthor) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${api.page.max-limit:500}")
+    private int maxPageLimit;
+
+    @Value("${hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public ServiceBook(RepositoryBook repositoryBook, RepositoryAuthor repositoryAuthor,
+                       ServiceBookSearch serviceBookSearch, RepositoryBuy repositoryBuy,
+                       ServiceBookSales serviceBookSales, ChangeClock changeClock, ChangeFeed changeFeed) {
         this.repositoryBook = repositoryBook;
         this.repositoryAuthor = repositoryAuthor;
+        this.serviceBookSearch = serviceBookSearch;
+        this.repositoryBuy = repositoryBuy;
+        this.serviceBookSales = serviceBookSales;
+        this.changeClock = changeClock;
+        this.changeFeed = changeFeed;
     }
 
+    @Transactional
     public void save(JsonBook jsonBook) {
+        Author author = repositoryAuthor.findById(jsonBook.idAuthor()).orElseThrow(() -> new RuntimeException("Author not found"));
+        serviceBookSearch.index(repositoryBook.save(toBook(jsonBook, author)));
+    }
+
+    /**
+     * Saves every book of the feed in a single transaction. The feed is consumed in chunks of
+     * {@code hibernate.jdbc.batch_size}: the authors of a chunk are resolved with one IN query and its inserts are
+     * flushed as one JDBC batch before the persistence context is cleared, so managed entities stay bounded by the
+     * chunk size. Until the commit the transaction still grows with the feed: ServiceBookSearch queues a small entry
+     * per book, and Hibernate keeps each insert action, book included, for the second-level cache and the post-commit
+     * listeners. Split feeds too large for that across calls.
+     */
+    @Transactional
+    public long saveAll(Iterator<JsonBook> jsonBooks) {
+        long saved = 0;
+        List<JsonBook> chunk = new ArrayList<>(batchSize);
+        while (jsonBooks.hasNext()) {
+            chunk.add(jsonBooks.next());
+            if (chunk.size() == batchSize || !jsonBooks.hasNext()) {
+                saved += saveChunk(chunk);
+                chunk.clear();
+            }
+        }
+        return saved;
+    }
+
+    private int saveChunk(List<JsonBook> chunk) {
+        Set<Long> authorIds = chunk.stream().map(JsonBook::idAuthor).collect(Collectors.toSet());
+        Map<Long, Author> authors = repositoryAuthor.findAllById(authorIds).stream()
+                .collect(Collectors.toMap(Author::getId, Function.identity()));
+        List<Book> books = new ArrayList<>(chunk.size());
+        for (JsonBook jsonBook : chunk) {
+            Author author = authors.get(jsonBook.idAuthor());
+            if (author == null) {
+                throw new RuntimeException("Author not found: " + jsonBook.idAuthor());
+            }
+            books.add(toBook(jsonBook, author));
+        }
+        repositoryBook.saveAll(books).forEach(serviceBookSearch::index);
+        entityManager.flush();
+        entityManager.clear();
+        return books.size();
+    }
+
+    private Book toBook(JsonBook jsonBook, Author author) {
         Book book = new Book();
         book.setTitle(jsonBook.title());
         book.setPublisher(jsonBook.publisher());
         book.setYear(jsonBook.year());
-        Author author = repositoryAuthor.findById(jsonBook.idAuthor()).orElseThrow(() -> new RuntimeException("Author not found"));
         book.setAuthor(author);
-        repositoryBook.save(book);
+        return book;
     }
 
+    @Transactional
     public void deleteById(Long id) {
-        repositoryBook.deleteById(id);
+        deleteByIds(List.of(id));
+    }
+
+    /**
+     * Deletes the books together with their purchases, one DELETE statement per table and none of the rows loaded.
+     * Purchases go first for the foreign key; the sales totals and search entries of the books are dropped, and the
+     * deletes published on the change feed, once the transaction commits.
+     */
+    @Transactional
+    public JsonDeleted deleteByIds(Collection<Long> ids) {
+        List<Long> existing = ids.isEmpty() ? List.of() : repositoryBook.findExistingIds(ids);
+        if (existing.isEmpty()) {
+            return new JsonDeleted(0, 0, 0);
+        }
+        changeFeed.deletedOnCommit(Buy.class, repositoryBuy.findIdsByBookIds(existing));
+        int buys = repositoryBuy.deleteByBookIds(existing);
+        int books = repositoryBook.deleteByIds(existing);
+        changeFeed.deletedOnCommit(Book.class, existing);
+        serviceBookSales.removeBooks(existing);
+        serviceBookSearch.removeAll(existing);
+        changeClock.changedOnCommit(Buy.class, Book.class);
+        return new JsonDeleted(0, books, buys);
+    }
+
+    @Transactional
+    public JsonDeleted deleteByAuthorIds(Collection<Long> idAuthors) {
+        return deleteByIds(repositoryBook.findIdsByAuthorIds(idAuthors));
     }
+
+    /**
+     * @return the ETag of the book as served by find/id, or null when there is no such book
+     */
+    public String findETag(Long id) {
+        return repositoryBook.findVersionTagById(id).map(tag -> '"' + tag + '"').orElse(null);
+    }
+
+    /**
+     * Reads through the second-level cache: the book and its author are each served from their cache region when
+     * present, and only the misses reach the database.
+     */
     public Book findById(Long id) {
-        return repositoryBook.findById(id).orElse(null);
+        Book book = repositoryBook.findById(id).orElse(null);
+        if (book != null) {
+            Hibernate.initialize(book.getAuthor());
+        }
+        return book;
     }
+
+    /**
+     * The books with the given ids, in the same order and null where there is no such book. Like {@link #findById}
+     * the second-level cache is checked first; the remaining books are read with a single IN query.
+     */
+    public List<Book> findByIds(List<Long> ids) {
+        List<Book> books = entityManager.unwrap(Session.class).byMultipleIds(Book.class)
+                .with(CacheMode.NORMAL)
+                .withBatchSize(ids.size())
+                .multiLoad(ids);
+        books.stream().filter(Objects::nonNull).forEach(book -> Hibernate.initialize(book.getAuthor()));
+        return books;
+    }
+
+    @Transactional
     public List<Book> findAll() {
-        return repositoryBook.findAll();
+        readFromPrimary();
+        List<Book> books = repositoryBook.findAll();
+        books.forEach(book -> Hibernate.initialize(book.getAuthor()));
+        return books;
+    }
+
+    @Transactional
+    public List<Book> findPage(long after, int limit) {
+        readFromPrimary();
+        return repositoryBook.findByIdGreaterThanOrderByIdAsc(after, Limit.of(Math.clamp(limit, 1, maxPageLimit)));
+    }
+
+    /**
+     * Read views of the books after the given id; a null limit reads them all.
+     */
+    @Transactional
+    public List<JsonBookView> findViews(ViewShape shape, long after, Integer limit) {
+        readFromPrimary();
+        Limit rows = limit == null ? Limit.unlimited() : Limit.of(Math.clamp(limit, 1, maxPageLimit));
+        return shape == ViewShape.REF ? repositoryBook.findRefViews(after, rows) : repositoryBook.findFlatViews(after, rows);
+    }
+
+    /**
+     * The list endpoints answer conditional requests with the ChangeClock ETag, which moves when the primary commits.
+     * A lagging replica could return rows older than that ETag, and clients would then keep them on 304s until the
+     * next write, so those lists are read in a read-write transaction, which keeps them on the primary. The session is
+     * made read-only and is never flushed, as in a read-only transaction.
+     */
+    private void readFromPrimary() {
+        Session session = entityManager.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+    }
+
+    public void streamAll(Consumer<Book> consumer) {
+        try (Stream<Book> books = repositoryBook.streamAllByOrderByIdAsc()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        }
     }
 }
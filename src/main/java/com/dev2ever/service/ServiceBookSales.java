@@ -0,0 +1,225 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonBookSales;
+import com.dev2ever.model.BookSalesSummary;
+import com.dev2ever.repository.RepositoryBookSalesSummary;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-book sales counters. Purchases only add to in-memory LongAdders, so concurrent buys of the same book never
+ * wait on each other or on a database row lock; a scheduled flush moves the accumulated deltas into
+ * BookSalesSummary with one additive update per book that changed.
+ * <p>
+ * Deltas not flushed yet live only in this JVM: a crash or kill -9 loses up to {@code sales.summary.flush-ms} of
+ * purchases from the totals, while the Buy rows themselves are committed. {@link #rebuild} recomputes
+ * BookSalesSummary from Buy, at startup when {@code sales.summary.rebuild-on-startup} is set and on demand through
+ * {@code POST report/sales/rebuild}.
+ */
+@Service
+@Profile("production")
+public class ServiceBookSales {
+
+    private static final Logger logger = Logger.getLogger(ServiceBookSales.class.getName());
+
+    // units and revenue are accumulated in hundredths, the scale of the summary columns
+    private static final int SCALE = 2;
+
+    private final RepositoryBookSalesSummary repositoryBookSalesSummary;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Delta> pending = new ConcurrentHashMap<>();
+
+    @Value("${sales.summary.top-max-limit:100}")
+    private int maxTopLimit;
+
+    @Value("${sales.summary.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    public ServiceBookSales(RepositoryBookSalesSummary repositoryBookSalesSummary,
+                            PlatformTransactionManager transactionManager) {
+        this.repositoryBookSalesSummary = repositoryBookSalesSummary;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // flushes and deletes run on their own, including after the commit of a transaction that is still bound
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void recordPurchase(Long idBook, BigDecimal amount, BigDecimal price) {
+        record(idBook, 1, amount, price);
+    }
+
+    public void recordRemoval(Long idBook, BigDecimal amount, BigDecimal price) {
+        record(idBook, -1, amount, price);
+    }
+
+    /**
+     * Takes purchases deleted together off the counters, given their totals per book.
+     */
+    public void recordRemovals(JsonBookSales sales) {
+        add(sales.idBook(), -sales.purchases(), -toHundredths(sales.units()), -toHundredths(sales.revenue()));
+    }
+
+    /**
+     * Drops the totals of deleted books, flushed and pending, once the transaction deleting them commits. The
+     * summary rows are deleted under the flush lock, so a flush running at the same time cannot write them back.
+     */
+    public void removeBooks(Collection<Long> idBooks) {
+        List<Long> ids = List.copyOf(idBooks);
+        afterCommit(() -> remove(ids));
+    }
+
+    private synchronized void remove(List<Long> idBooks) {
+        pending.keySet().removeAll(idBooks);
+        try {
+            transactionTemplate.executeWithoutResult(status -> repositoryBookSalesSummary.deleteAllByIdInBatch(idBooks));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Could not delete the sales of deleted books " + idBooks, e);
+        }
+    }
+
+    /**
+     * Totals of one book: the flushed row plus the deltas not flushed yet.
+     */
+    @Transactional(readOnly = true)
+    public BookSalesSummary findByBook(Long idBook) {
+        BookSalesSummary summary = repositoryBookSalesSummary.findById(idBook)
+                .orElseGet(() -> new BookSalesSummary(idBook, 0, BigDecimal.ZERO, BigDecimal.ZERO));
+        Delta delta = pending.get(idBook);
+        if (delta == null) {
+            return summary;
+        }
+        return new BookSalesSummary(idBook, summary.getPurchases() + delta.purchases.sum(),
+                summary.getUnits().add(BigDecimal.valueOf(delta.units.sum(), SCALE)),
+                summary.getRevenue().add(BigDecimal.valueOf(delta.revenue.sum(), SCALE)));
+    }
+
+    /**
+     * Best sellers by revenue, read from the revenue index. Lags behind purchases by at most one flush interval.
+     */
+    @Transactional(readOnly = true)
+    public List<BookSalesSummary> findTop(int limit) {
+        return repositoryBookSalesSummary.findAllByOrderByRevenueDesc(Limit.of(Math.clamp(limit, 1, maxTopLimit)));
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replaces BookSalesSummary with the totals of the Buy table and drops the pending deltas, in one transaction
+     * under the flush lock. A purchase that commits while the totals are summed may be counted twice or not at all,
+     * so outside startup run it while purchases are quiet.
+     *
+     * @return the number of books with sales
+     */
+    public synchronized int rebuild() {
+        long start = System.nanoTime();
+        pending.clear();
+        int books = transactionTemplate.execute(status -> {
+            repositoryBookSalesSummary.deleteAllInBatch();
+            return repositoryBookSalesSummary.insertTotalsFromBuys();
+        });
+        logger.info(() -> "Rebuilt the sales totals of " + books + " books from the purchases in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return books;
+    }
+
+    @Scheduled(fixedDelayString = "${sales.summary.flush-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Flushed> batch = new ArrayList<>();
+        pending.forEach((idBook, delta) -> {
+            Flushed flushed = new Flushed(idBook, delta, delta.purchases.sumThenReset(), delta.units.sumThenReset(),
+                    delta.revenue.sumThenReset());
+            if (flushed.purchases != 0 || flushed.units != 0 || flushed.revenue != 0) {
+                batch.add(flushed);
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(flushed -> {
+                BigDecimal units = BigDecimal.valueOf(flushed.units, SCALE);
+                BigDecimal revenue = BigDecimal.valueOf(flushed.revenue, SCALE);
+                if (repositoryBookSalesSummary.addSales(flushed.idBook, flushed.purchases, units, revenue) == 0) {
+                    repositoryBookSalesSummary.save(new BookSalesSummary(flushed.idBook, flushed.purchases, units, revenue));
+                }
+            }));
+        } catch (RuntimeException e) {
+            // the whole batch rolled back: put the deltas back so the next flush retries them
+            batch.forEach(flushed -> flushed.delta.add(flushed.purchases, flushed.units, flushed.revenue));
+            logger.log(Level.WARNING, "Could not flush book sales, retrying on the next flush", e);
+        }
+    }
+
+    private void record(Long idBook, int sign, BigDecimal amount, BigDecimal price) {
+        add(idBook, sign, sign * toHundredths(amount), sign * toHundredths(amount.multiply(price)));
+    }
+
+    private void add(Long idBook, long purchases, long units, long revenue) {
+        // only count purchases whose transaction actually commits
+        afterCommit(() -> delta(idBook).add(purchases, units, revenue));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Delta delta(Long idBook) {
+        return pending.computeIfAbsent(idBook, id -> new Delta());
+    }
+
+    private static long toHundredths(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    private static final class Delta {
+        private final LongAdder purchases = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder revenue = new LongAdder();
+
+        private void add(long purchases, long units, long revenue) {
+            this.purchases.add(purchases);
+            this.units.add(units);
+            this.revenue.add(revenue);
+        }
+    }
+
+    private record Flushed(Long idBook, Delta delta, long purchases, long units, long revenue) {
+    }
+}
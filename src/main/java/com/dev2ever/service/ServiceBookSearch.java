@@ -0,0 +1,165 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonBookHit;
+import com.dev2ever.component.search.BookSearchIndex;
+import com.dev2ever.model.Author;
+import com.dev2ever.model.Book;
+import com.dev2ever.repository.RepositoryBook;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the in-memory BookSearchIndex in line with the catalog: it is loaded once the context is refreshed and
+ * then updated by ServiceBook as books are saved and deleted, and by ServiceAuthor as authors are renamed.
+ */
+@Service
+@Profile("production")
+public class ServiceBookSearch {
+
+    private static final Logger logger = Logger.getLogger(ServiceBookSearch.class.getName());
+
+    private final RepositoryBook repositoryBook;
+    private final BookSearchIndex index;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${api.page.max-limit:500}")
+    private int maxPageLimit;
+
+    public ServiceBookSearch(RepositoryBook repositoryBook,
+                             @Value("${search.min-prefix-length:2}") int minPrefixLength) {
+        this.repositoryBook = repositoryBook;
+        this.index = new BookSearchIndex(minPrefixLength);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+        index.clear();
+        try (Stream<Book> books = repositoryBook.streamAllByOrderByIdAsc()) {
+            books.forEach(book -> {
+                put(book);
+                entityManager.detach(book);
+            });
+        }
+        logger.info(() -> "Indexed " + index.size() + " books for search in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    public List<JsonBookHit> search(String query, int limit) {
+        return index.search(query, Math.clamp(limit, 1, maxPageLimit));
+    }
+
+    /**
+     * Indexes the saved book; inside a transaction it is only indexed once the transaction commits. The entry is taken
+     * from the book right away, so the transaction keeps its id, title, publisher and author name rather than the
+     * entities.
+     */
+    public void index(Book book) {
+        Author author = book.getAuthor();
+        apply(new Entry(book.getId(), false, book.getTitle(), book.getPublisher(),
+                author == null ? null : author.getName() + " " + author.getLastName()));
+    }
+
+    /**
+     * Indexes the books of the author again, as the author's name is part of their entries. The books are read in
+     * the current transaction and, like {@link #index}, indexed once it commits.
+     */
+    public void indexByAuthorId(Long idAuthor) {
+        repositoryBook.findByAuthorId(idAuthor).forEach(this::index);
+    }
+
+    public void remove(Long id) {
+        apply(new Entry(id, true, null, null, null));
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        ids.forEach(this::remove);
+    }
+
+    private void put(Book book) {
+        Author author = book.getAuthor();
+        index.put(book.getId(), book.getTitle(), book.getPublisher(),
+                author == null ? null : author.getName() + " " + author.getLastName());
+    }
+
+    /**
+     * Applies the entry now, or queues it on the current transaction; the queue is applied in order by one
+     * synchronization once the transaction commits, and dropped on rollback.
+     */
+    private void apply(Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entry.applyTo(index);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Entry> pending = (List<Entry>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new PendingEntries(pending));
+        }
+        pending.add(entry);
+    }
+
+    /**
+     * A search entry to put, or the id of one to remove.
+     */
+    private record Entry(Long id, boolean removed, String title, String publisher, String author) {
+
+        void applyTo(BookSearchIndex index) {
+            if (removed) {
+                index.remove(id);
+            } else {
+                index.put(id, title, publisher, author);
+            }
+        }
+    }
+
+    private class PendingEntries implements TransactionSynchronization {
+
+        private final List<Entry> entries;
+
+        PendingEntries(List<Entry> entries) {
+            this.entries = entries;
+        }
+
+        // a transaction started inside this one (REQUIRES_NEW) queues its own entries
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(ServiceBookSearch.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(ServiceBookSearch.this, entries);
+        }
+
+        @Override
+        public void afterCommit() {
+            entries.forEach(entry -> entry.applyTo(index));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ServiceBookSearch.this);
+        }
+    }
+}
@@ -1,45 +1,195 @@
 package com.dev2ever.service;
 
+import com.dev2ever.api.rest.JsonBookSales;
 import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.api.rest.JsonBuyView;
+import com.dev2ever.api.rest.JsonDeleted;
+import com.dev2ever.api.rest.ViewShape;
+import com.dev2ever.component.ChangeClock;
+import com.dev2ever.component.ChangeFeed;
+import com.dev2ever.component.IdempotencyKeys;
 import com.dev2ever.model.Book;
 import com.dev2ever.model.Buy;
 import com.dev2ever.repository.RepositoryBook;
 import com.dev2ever.repository.RepositoryBuy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.graph.GraphSemantic;
+import org.hibernate.graph.RootGraph;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Read-only transactions unless a method says otherwise, like {@link ServiceBook}.
+ */
 @Service
 @Profile("production")
+@Transactional(readOnly = true)
 public class ServiceBuy {
 
     private final RepositoryBuy repositoryBuy;
     private final RepositoryBook repositoryBook;
+    private final ServiceBookSales serviceBookSales;
+    private final IdempotencyKeys idempotencyKeys;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeClock changeClock;
+    private final ChangeFeed changeFeed;
 
-    public ServiceBuy(RepositoryBuy repositoryBuy, RepositoryBook repositoryBook) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${api.page.max-limit:500}")
+    private int maxPageLimit;
+
+    public ServiceBuy(RepositoryBuy repositoryBuy, RepositoryBook repositoryBook, ServiceBookSales serviceBookSales,
+                      IdempotencyKeys idempotencyKeys, PlatformTransactionManager transactionManager,
+                      ChangeClock changeClock, ChangeFeed changeFeed) {
         this.repositoryBuy = repositoryBuy;
         this.repositoryBook = repositoryBook;
+        this.serviceBookSales = serviceBookSales;
+        this.idempotencyKeys = idempotencyKeys;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeClock = changeClock;
+        this.changeFeed = changeFeed;
+    }
+
+    @Transactional
+    public Long createBuy(JsonBuy jsonBuy){
+        return insert(jsonBuy, null);
+    }
+
+    /**
+     * Creates the purchase once per idempotency key: a retry with the same key gets the id of the original purchase
+     * from the in-memory window, and only falls back to the database when the key has left it. The insert has its own
+     * transaction so that a unique key violation is seen at its commit, and the lookup of the original row runs in a
+     * fresh read-write transaction, which keeps it on the primary.
+     *
+     * @return the id of the purchase, or null when the key was accepted by the write-behind queue and that purchase
+     *         is not committed yet
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Long createBuy(JsonBuy jsonBuy, String idempotencyKey){
+        if (idempotencyKey == null) {
+            return transactionTemplate.execute(status -> insert(jsonBuy, null));
+        }
+        return idempotencyKeys.resolve(idempotencyKey, () -> {
+            try {
+                return transactionTemplate.execute(status -> insert(jsonBuy, idempotencyKey));
+            } catch (DataIntegrityViolationException e) {
+                // the unique constraint kept the original row
+                return transactionTemplate.execute(status -> repositoryBuy.findIdByIdempotencyKey(idempotencyKey))
+                        .orElseThrow(() -> e);
+            }
+        });
     }
-    public void createBuy(JsonBuy jsonBuy){
+
+    private Long insert(JsonBuy jsonBuy, String idempotencyKey){
         Buy buy = new Buy();
         buy.setDescription(jsonBuy.description());
         buy.setPrice(jsonBuy.price());
         Book book = repositoryBook.findById(jsonBuy.idBook()).orElseThrow(()-> new RuntimeException("Book not found"));
         buy.setBook(book);
         buy.setAmount(jsonBuy.amount());
+        buy.setPurchasedAt(Instant.now());
+        buy.setIdempotencyKey(idempotencyKey);
         repositoryBuy.save(buy);
+        serviceBookSales.recordPurchase(book.getId(), buy.getAmount(), buy.getPrice());
+        return buy.getId();
     }
 
     public Buy findBuy(Long id){
-        return repositoryBuy.findById(id).orElse(null);
+        return repositoryBuy.findWithBookAndAuthorById(id).orElse(null);
+    }
+
+    /**
+     * The purchases with the given ids, in the same order and null where there is no such purchase, read together
+     * with their books and authors by a single IN query.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Buy> findBuys(List<Long> ids){
+        return entityManager.unwrap(Session.class).byMultipleIds(Buy.class)
+                .with((RootGraph<Buy>) entityManager.getEntityGraph(Buy.WITH_BOOK_AND_AUTHOR), GraphSemantic.FETCH)
+                .withBatchSize(ids.size())
+                .multiLoad(ids);
     }
 
     public List<Buy> findAll(){
-        return repositoryBuy.findAll();
+        return repositoryBuy.findAllWithBookAndAuthor();
+    }
+
+    public List<Buy> findPage(long after, int limit){
+        return repositoryBuy.findByIdGreaterThanOrderByIdAsc(after, Limit.of(Math.clamp(limit, 1, maxPageLimit)));
     }
 
+    /**
+     * Read views of the purchases after the given id; a null limit reads them all.
+     */
+    public List<JsonBuyView> findViews(ViewShape shape, long after, Integer limit){
+        Limit rows = limit == null ? Limit.unlimited() : Limit.of(Math.clamp(limit, 1, maxPageLimit));
+        return shape == ViewShape.REF ? repositoryBuy.findRefViews(after, rows) : repositoryBuy.findFlatViews(after, rows);
+    }
+
+    public void streamAll(Consumer<Buy> consumer){
+        try (Stream<Buy> buys = repositoryBuy.streamAllByOrderByIdAsc()) {
+            buys.forEach(buy -> {
+                consumer.accept(buy);
+                entityManager.detach(buy);
+            });
+        }
+    }
+
+    @Transactional
     public void deleteBuy(Long id){
-        repositoryBuy.deleteById(id);
+        deleteBuys(List.of(id));
+    }
+
+    /**
+     * Deletes the purchases with one DELETE statement and takes them off the sales counters with their totals per
+     * book, summed by the database just before. If another transaction deleted some of them in between, the totals
+     * no longer match the rows deleted and the delete fails instead of counting those purchases off twice.
+     */
+    @Transactional
+    public JsonDeleted deleteBuys(Collection<Long> ids){
+        List<Long> existing = ids.isEmpty() ? List.of() : repositoryBuy.findExistingIds(ids);
+        if (existing.isEmpty()) {
+            return new JsonDeleted(0, 0, 0);
+        }
+        return deleted(existing, repositoryBuy.salesByBookOfIds(existing), repositoryBuy.deleteByIds(existing));
+    }
+
+    /**
+     * Deletes the purchases made before the given instant, like {@link #deleteBuys}.
+     */
+    @Transactional
+    public JsonDeleted deleteBuysBefore(Instant before){
+        return deleted(repositoryBuy.findIdsPurchasedBefore(before), repositoryBuy.salesByBookPurchasedBefore(before),
+                repositoryBuy.deletePurchasedBefore(before));
+    }
+
+    private JsonDeleted deleted(List<Long> ids, List<JsonBookSales> sales, int buys){
+        if (sales.stream().mapToLong(JsonBookSales::purchases).sum() != buys) {
+            throw new OptimisticLockingFailureException("Purchases were deleted concurrently, nothing was deleted");
+        }
+        sales.stream().filter(bookSales -> bookSales.idBook() != null).forEach(serviceBookSales::recordRemovals);
+        if (buys > 0) {
+            changeFeed.deletedOnCommit(Buy.class, ids);
+            changeClock.changedOnCommit(Buy.class);
+        }
+        return new JsonDeleted(0, 0, buys);
     }
 }
@@ -0,0 +1,191 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.component.IdempotencyKeys;
+import com.dev2ever.model.Buy;
+import com.dev2ever.repository.RepositoryBook;
+import com.dev2ever.repository.RepositoryBuy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind purchases (buy.write-behind.enabled). A purchase is validated and put on a bounded queue, and a
+ * single writer thread inserts whatever has queued up since its last commit as one transaction of up to
+ * buy.write-behind.batch-size rows, so the commit cost is shared by the whole group.
+ * <p>
+ * Acknowledgement is not durable: an accepted purchase only lives in memory until its group commits. Purchases still
+ * queued are written when the context closes, but they are lost if the JVM dies first. Callers that need a
+ * committed purchase must use the synchronous ServiceBuy.createBuy.
+ */
+@Service
+@Profile("production")
+public class ServiceBuyWriter {
+
+    private static final Logger logger = Logger.getLogger(ServiceBuyWriter.class.getName());
+
+    private final RepositoryBuy repositoryBuy;
+    private final RepositoryBook repositoryBook;
+    private final ServiceBookSales serviceBookSales;
+    private final IdempotencyKeys idempotencyKeys;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Accepted> queue;
+
+    @Value("${buy.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${buy.write-behind.batch-size:50}")
+    private int batchSize;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public ServiceBuyWriter(RepositoryBuy repositoryBuy, RepositoryBook repositoryBook,
+                            ServiceBookSales serviceBookSales, IdempotencyKeys idempotencyKeys,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${buy.write-behind.queue-capacity:10000}") int queueCapacity) {
+        this.repositoryBuy = repositoryBuy;
+        this.repositoryBook = repositoryBook;
+        this.serviceBookSales = serviceBookSales;
+        this.idempotencyKeys = idempotencyKeys;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("buy-writer").daemon().start(this::drain);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public boolean enqueue(JsonBuy jsonBuy) {
+        return enqueue(jsonBuy, null);
+    }
+
+    /**
+     * Validates the purchase and queues it for the writer. A purchase whose idempotency key was already accepted is
+     * reported as accepted without being queued again.
+     *
+     * @return false when the queue is full and the purchase was not accepted
+     */
+    public boolean enqueue(JsonBuy jsonBuy, String idempotencyKey) {
+        // served from the book cache region once the book has been read
+        repositoryBook.findById(jsonBuy.idBook()).orElseThrow(() -> new RuntimeException("Book not found"));
+        if (idempotencyKey != null && !idempotencyKeys.claim(idempotencyKey)) {
+            return true;
+        }
+        if (queue.offer(new Accepted(jsonBuy, idempotencyKey, Instant.now()))) {
+            return true;
+        }
+        if (idempotencyKey != null) {
+            idempotencyKeys.release(idempotencyKey);
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join();
+        List<Accepted> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void drain() {
+        List<Accepted> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Accepted first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Dropped " + batch.size() + " purchases", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Accepted> batch) {
+        try {
+            remember(transactionTemplate.execute(status -> insert(batch)));
+        } catch (RuntimeException e) {
+            // one bad purchase (e.g. its book was deleted meanwhile) must not take the rest of the group with it
+            logger.log(Level.WARNING, "Group commit of " + batch.size() + " purchases failed, writing them one by one", e);
+            for (Accepted accepted : batch) {
+                try {
+                    remember(transactionTemplate.execute(status -> insert(List.of(accepted))));
+                } catch (RuntimeException single) {
+                    logger.log(Level.SEVERE, "Dropped purchase " + accepted, single);
+                    // no row was created, so a retry with the same key may create it
+                    if (accepted.idempotencyKey() != null) {
+                        idempotencyKeys.release(accepted.idempotencyKey());
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Buy> insert(List<Accepted> batch) {
+        List<Buy> buys = new ArrayList<>(batch.size());
+        for (Accepted accepted : batch) {
+            Buy buy = new Buy();
+            buy.setDescription(accepted.buy().description());
+            buy.setPrice(accepted.buy().price());
+            buy.setBook(repositoryBook.getReferenceById(accepted.buy().idBook()));
+            buy.setAmount(accepted.buy().amount());
+            buy.setPurchasedAt(accepted.at());
+            buy.setIdempotencyKey(accepted.idempotencyKey());
+            buys.add(buy);
+        }
+        repositoryBuy.saveAll(buys);
+        buys.forEach(buy -> serviceBookSales.recordPurchase(buy.getBook().getId(), buy.getAmount(), buy.getPrice()));
+        return buys;
+    }
+
+    private void remember(List<Buy> committed) {
+        committed.stream()
+                .filter(buy -> buy.getIdempotencyKey() != null)
+                .forEach(buy -> idempotencyKeys.remember(buy.getIdempotencyKey(), buy.getId()));
+    }
+
+    private record Accepted(JsonBuy buy, String idempotencyKey, Instant at) {
+    }
+}
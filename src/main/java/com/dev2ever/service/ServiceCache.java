@@ -0,0 +1,38 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonCacheStatistics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+@Profile("production")
+public class ServiceCache {
+
+    private final SessionFactory sessionFactory;
+
+    public ServiceCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public List<JsonCacheStatistics> getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .map(region -> {
+                    CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+                    return new JsonCacheStatistics(region, regionStatistics.getHitCount(),
+                            regionStatistics.getMissCount(), regionStatistics.getPutCount());
+                })
+                .toList();
+    }
+
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+}
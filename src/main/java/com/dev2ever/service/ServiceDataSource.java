@@ -0,0 +1,37 @@
+package com.dev2ever.service;
+
+import com.dev2ever.datasource.InstrumentedDataSource;
+import com.dev2ever.datasource.ReadWriteDataSource;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Service
+@Profile("production")
+public class ServiceDataSource {
+
+    private final InstrumentedDataSource dataSource;
+    private final ReadWriteDataSource readWriteDataSource;
+
+    public ServiceDataSource(DataSource dataSource) throws SQLException {
+        this.dataSource = dataSource.unwrap(InstrumentedDataSource.class);
+        this.readWriteDataSource = dataSource.isWrapperFor(ReadWriteDataSource.class)
+                ? dataSource.unwrap(ReadWriteDataSource.class) : null;
+    }
+
+    /**
+     * Statistics of the primary pool.
+     */
+    public InstrumentedDataSource.PoolStatistics getStatistics() {
+        return dataSource.getStatistics();
+    }
+
+    /**
+     * @return both pools and how reads were routed, or null when no replica is configured
+     */
+    public ReadWriteDataSource.RoutingStatistics getRoutingStatistics() {
+        return readWriteDataSource == null ? null : readWriteDataSource.getStatistics();
+    }
+}
@@ -0,0 +1,103 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonLatencyMetrics;
+import com.dev2ever.api.rest.JsonMetrics;
+import com.dev2ever.api.rest.JsonRepeatedStatement;
+import com.dev2ever.api.rest.JsonSqlMetrics;
+import com.dev2ever.component.aspects.ServiceCallTracker;
+import com.dev2ever.component.metrics.LatencyHistogram;
+import com.dev2ever.component.metrics.RequestMetricsInterceptor;
+import com.dev2ever.component.metrics.SqlStatementMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+public class ServiceMetrics {
+
+    private final RequestMetricsInterceptor requestMetrics;
+    private final ServiceCallTracker serviceCallTracker;
+    private final ObjectProvider<SqlStatementMetrics> sqlStatementMetrics;
+
+    public ServiceMetrics(RequestMetricsInterceptor requestMetrics, ServiceCallTracker serviceCallTracker,
+                          ObjectProvider<SqlStatementMetrics> sqlStatementMetrics) {
+        this.requestMetrics = requestMetrics;
+        this.serviceCallTracker = serviceCallTracker;
+        this.sqlStatementMetrics = sqlStatementMetrics;
+    }
+
+    public JsonMetrics getMetrics() {
+        List<JsonLatencyMetrics> endpoints = requestMetrics.getRoutes().stream()
+                .map(route -> toJson(route.getRoute(), route.getLatency(), route.getErrors(), route.getInFlight()))
+                .sorted(Comparator.comparing(JsonLatencyMetrics::name))
+                .toList();
+        List<JsonLatencyMetrics> serviceMethods = serviceCallTracker.getHistograms().entrySet().stream()
+                .map(entry -> toJson(entry.getKey().getDeclaringClass().getSimpleName() + "." + entry.getKey().getName(),
+                        entry.getValue(), 0, 0))
+                .sorted(Comparator.comparing(JsonLatencyMetrics::name))
+                .toList();
+        return new JsonMetrics(requestMetrics.getInFlight(), endpoints, serviceMethods);
+    }
+
+    /**
+     * Statement shapes by total time spent, most expensive first, and the repeated selects seen per route: likely N+1
+     * patterns and batch loads.
+     *
+     * @return null outside the production profile, where there is no database
+     */
+    public JsonSqlMetrics getSqlMetrics() {
+        SqlStatementMetrics metrics = sqlStatementMetrics.getIfAvailable();
+        if (metrics == null) {
+            return null;
+        }
+        List<JsonLatencyMetrics> statements = metrics.getShapes().stream()
+                .sorted(Comparator.comparingDouble((SqlStatementMetrics.StatementShape shape) -> shape.getLatency().getTotalMillis()).reversed())
+                .map(shape -> toJson(shape.getSql(), shape.getLatency(), shape.getErrors(), 0))
+                .toList();
+        List<JsonRepeatedStatement> repeated = metrics.getRepeatedStatements().stream()
+                .map(statement -> new JsonRepeatedStatement(statement.getRoute(), statement.getSql(),
+                        statement.isBatchLoad(), statement.getRequests(), statement.getMaxExecutions()))
+                .sorted(Comparator.comparing(JsonRepeatedStatement::route).thenComparing(JsonRepeatedStatement::sql))
+                .toList();
+        return new JsonSqlMetrics(metrics.getSlowStatements(), statements, repeated);
+    }
+
+    /**
+     * Renders the endpoint metrics in the Prometheus text exposition format, latencies as summaries in seconds.
+     */
+    public String getPrometheusMetrics() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE http_server_requests_in_flight gauge\n");
+        out.append("http_server_requests_in_flight ").append(requestMetrics.getInFlight()).append('\n');
+        out.append("# TYPE http_server_requests_seconds summary\n");
+        for (RequestMetricsInterceptor.RouteMetrics route : requestMetrics.getRoutes()) {
+            LatencyHistogram latency = route.getLatency();
+            String labels = "route=\"" + route.getRoute() + "\"";
+            for (double quantile : new double[]{0.5, 0.95, 0.99}) {
+                out.append("http_server_requests_seconds{").append(labels).append(",quantile=\"").append(quantile)
+                        .append("\"} ").append(seconds(latency.getPercentileMillis(quantile * 100))).append('\n');
+            }
+            out.append("http_server_requests_seconds_count{").append(labels).append("} ").append(latency.getCount()).append('\n');
+            out.append("http_server_requests_seconds_sum{").append(labels).append("} ").append(seconds(latency.getTotalMillis())).append('\n');
+        }
+        out.append("# TYPE http_server_requests_errors_total counter\n");
+        for (RequestMetricsInterceptor.RouteMetrics route : requestMetrics.getRoutes()) {
+            out.append("http_server_requests_errors_total{route=\"").append(route.getRoute()).append("\"} ")
+                    .append(route.getErrors()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String seconds(double millis) {
+        return String.format(Locale.ROOT, "%.6f", millis / 1000.0);
+    }
+
+    private static JsonLatencyMetrics toJson(String name, LatencyHistogram latency, long errors, long inFlight) {
+        return new JsonLatencyMetrics(name, latency.getCount(), errors, inFlight, latency.getMeanMillis(),
+                latency.getPercentileMillis(50), latency.getPercentileMillis(95), latency.getPercentileMillis(99),
+                latency.getMaxMillis());
+    }
+}
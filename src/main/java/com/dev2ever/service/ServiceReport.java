@@ -0,0 +1,62 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonAuthorSales;
+import com.dev2ever.api.rest.JsonBookSales;
+import com.dev2ever.api.rest.JsonPeriodSales;
+import com.dev2ever.api.rest.JsonPublisherSales;
+import com.dev2ever.repository.RepositoryBuy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Sales reports aggregated by the database. Ranges are [from, to] inclusive, in UTC days; a missing
+ * bound leaves that side of the range open. Period buckets are UTC days, months and years too, since
+ * every database session runs in {@code db.session-time-zone} (UTC).
+ */
+@Service
+@Profile("production")
+@Transactional(readOnly = true)
+public class ServiceReport {
+
+    public enum Bucket { DAY, MONTH, YEAR }
+
+    private final RepositoryBuy repositoryBuy;
+
+    public ServiceReport(RepositoryBuy repositoryBuy) {
+        this.repositoryBuy = repositoryBuy;
+    }
+
+    public List<JsonBookSales> salesByBook(LocalDate from, LocalDate to) {
+        return repositoryBuy.salesByBook(start(from), end(to));
+    }
+
+    public List<JsonAuthorSales> salesByAuthor(LocalDate from, LocalDate to) {
+        return repositoryBuy.salesByAuthor(start(from), end(to));
+    }
+
+    public List<JsonPublisherSales> salesByPublisher(LocalDate from, LocalDate to) {
+        return repositoryBuy.salesByPublisher(start(from), end(to));
+    }
+
+    public List<JsonPeriodSales> salesByPeriod(Bucket bucket, LocalDate from, LocalDate to) {
+        return switch (bucket) {
+            case DAY -> repositoryBuy.salesByDay(start(from), end(to));
+            case MONTH -> repositoryBuy.salesByMonth(start(from), end(to));
+            case YEAR -> repositoryBuy.salesByYear(start(from), end(to));
+        };
+    }
+
+    private static Instant start(LocalDate from) {
+        return from == null ? Instant.EPOCH : from.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static Instant end(LocalDate to) {
+        return to == null ? Instant.now() : to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
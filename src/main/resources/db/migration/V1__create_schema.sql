@@ -0,0 +1,55 @@
+-- Schema of the JPA model in com.dev2ever.model. Hibernate only validates it (hibernate.hbm2ddl.auto=validate), so
+-- every mapping change needs a new migration. Sequences advance by 50, the allocation size of the pooled id generator
+-- in AbstractEntity.
+
+create sequence Author_SEQ start with 1 increment by 50;
+create sequence Book_SEQ start with 1 increment by 50;
+create sequence Buy_SEQ start with 1 increment by 50;
+
+create table Author (
+    Id       bigint       not null,
+    OptLock  integer,
+    name     varchar(255) not null,
+    lastName varchar(255) not null,
+    email    varchar(255),
+    phone    varchar(255),
+    constraint pk_author primary key (Id)
+);
+
+create table Book (
+    Id        bigint       not null,
+    OptLock   integer,
+    title     varchar(255) not null,
+    author_Id bigint       not null,
+    publisher varchar(255),
+    year      integer,
+    price     numeric(38, 2),
+    constraint pk_book primary key (Id),
+    constraint fk_book_author foreign key (author_Id) references Author
+);
+
+create table Buy (
+    Id             bigint                   not null,
+    OptLock        integer,
+    amount         numeric(38, 2)           not null,
+    description    varchar(255),
+    price          numeric(38, 2)           not null,
+    purchasedAt    timestamp(6) with time zone not null,
+    idempotencyKey varchar(255),
+    book_Id        bigint,
+    constraint pk_buy primary key (Id),
+    constraint uk_buy_idempotency_key unique (idempotencyKey),
+    constraint fk_buy_book foreign key (book_Id) references Book
+);
+
+create index idx_buy_purchased_at on Buy (purchasedAt);
+
+create table BookSalesSummary (
+    IdBook    bigint         not null,
+    purchases bigint         not null,
+    units     numeric(19, 2) not null,
+    revenue   numeric(19, 2) not null,
+    constraint pk_book_sales_summary primary key (IdBook)
+);
+
+create index idx_book_sales_summary_revenue on BookSalesSummary (revenue);
@@ -0,0 +1,8 @@
+-- PostgreSQL does not index the referencing side of a foreign key: without these, the books of an author and the
+-- buys of a book (joins of the report and view queries, cascading deletes) scan the whole table.
+create index idx_book_author on Book (author_Id);
+create index idx_buy_book on Buy (book_Id);
+
+-- Lookups and ordering by title and by author name.
+create index idx_book_title on Book (title);
+create index idx_author_last_name on Author (lastName, name);
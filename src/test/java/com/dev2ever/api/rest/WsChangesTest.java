@@ -0,0 +1,91 @@
+package com.dev2ever.api.rest;
+
+import com.dev2ever.component.ChangeFeed;
+import com.dev2ever.model.Author;
+import com.dev2ever.service.AbstractServiceTest;
+import com.dev2ever.service.ServiceAuthor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class WsChangesTest extends AbstractServiceTest {
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    ServiceAuthor serviceAuthor;
+
+    private WsChanges wsChanges;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("changes-");
+        executor.setVirtualThreads(true);
+        wsChanges = new WsChanges(changeFeed, executor);
+        mockMvc = MockMvcBuilders.standaloneSetup(wsChanges).build();
+    }
+
+    @Test
+    void theHandlerReturnsAndChangesAreWrittenAsTheyCommit() throws Exception {
+        MvcResult result = mockMvc.perform(get("/changes").param("type", "Author"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = result.getResponse();
+        await(() -> content(response).contains("event:reset"));
+
+        Author author = new Author("Frank", "Herbert", "frank@example.com", "555-0107");
+        serviceAuthor.save(author);
+
+        await(() -> content(response).contains("\"id\":" + author.getId()));
+        String content = content(response);
+        assertTrue(content.contains("event:change\ndata:{\"type\":\"Author\""), content);
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void heartbeatsOnlyGoToIdleStreams() throws Exception {
+        MvcResult result = mockMvc.perform(get("/changes")).andExpect(request().asyncStarted()).andReturn();
+        MockHttpServletResponse response = result.getResponse();
+        await(() -> content(response).contains("event:reset"));
+
+        wsChanges.sendHeartbeats();
+        await(() -> content(response).contains(":keep-alive"));
+        serviceAuthor.save(new Author("Ray", "Bradbury", "ray@example.com", "555-0108"));
+        await(() -> content(response).endsWith("\"operation\":\"INSERT\"}\n\n"));
+        String sent = content(response);
+        wsChanges.sendHeartbeats();
+        // nothing to wait for, give a heartbeat that should not be sent the time to show up
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(sent, content(response));
+    }
+
+    private static String content(MockHttpServletResponse response) {
+        try {
+            return response.getContentAsString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.dev2ever.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyKeysTest {
+
+    private final IdempotencyKeys keys = new IdempotencyKeys(1000, 60);
+
+    @Test
+    void concurrentCallsWithTheSameKeyCreateOnce() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> keys.resolve("a", () -> {
+            created.incrementAndGet();
+            creating.countDown();
+            await(release);
+            return 1L;
+        }));
+        creating.await();
+        CompletableFuture<Long> retry = CompletableFuture.supplyAsync(() -> keys.resolve("a", () -> {
+            created.incrementAndGet();
+            return 2L;
+        }));
+        release.countDown();
+        assertEquals(1L, first.get());
+        assertEquals(1L, retry.get());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void aSlowCreateDoesNotHoldUpOtherKeys() throws Exception {
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> slow = CompletableFuture.supplyAsync(() -> keys.resolve("slow", () -> {
+            creating.countDown();
+            await(release);
+            return 1L;
+        }));
+        creating.await();
+        for (int i = 0; i < 1000; i++) {
+            long id = i;
+            assertEquals(id, assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> keys.resolve("other-" + id, () -> id)));
+        }
+        release.countDown();
+        assertEquals(1L, slow.get());
+    }
+
+    @Test
+    void aFailedCreateGivesTheKeyUp() {
+        assertThrows(IllegalStateException.class, () -> keys.resolve("a", () -> {
+            throw new IllegalStateException("insert failed");
+        }));
+        assertEquals(2L, keys.resolve("a", () -> 2L));
+    }
+
+    @Test
+    void aWaitingCallTakesOverWhenTheFirstFails() throws Exception {
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> keys.resolve("a", () -> {
+            creating.countDown();
+            await(release);
+            throw new IllegalStateException("insert failed");
+        }));
+        creating.await();
+        CompletableFuture<Long> retry = CompletableFuture.supplyAsync(() -> keys.resolve("a", () -> 2L));
+        release.countDown();
+        assertThrows(Exception.class, first::get);
+        assertEquals(2L, retry.get());
+    }
+
+    @Test
+    void aPendingKeyResolvesToNull() {
+        assertTrue(keys.claim("a"));
+        assertFalse(keys.claim("a"));
+        assertNull(keys.resolve("a", () -> 1L));
+        keys.remember("a", 7L);
+        assertEquals(7L, keys.resolve("a", () -> 1L));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.dev2ever.component.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementMetricsTest {
+
+    private final SqlStatementMetrics metrics = new SqlStatementMetrics(60_000, 3, 100);
+
+    @Test
+    void normalizeCollapsesLiteralsAndParameterLists() {
+        assertEquals("select * from Book where id in (?, ...) and title = ?",
+                SqlStatementMetrics.normalize("select *  from Book\nwhere id in (?, ?, ?) and title = 'Dune'"));
+    }
+
+    @Test
+    void repeatedSelectsAreReportedAsLikelyNPlusOne() throws Exception {
+        request(() -> IntStream.range(0, 3).forEach(i ->
+                metrics.record("select * from Author where id=?", 1_000, false)));
+
+        SqlStatementMetrics.RepeatedStatement repeated = single(metrics.getRepeatedStatements());
+        assertFalse(repeated.isBatchLoad());
+        assertEquals("GET /book", repeated.getRoute());
+        assertEquals(3, repeated.getMaxExecutions());
+    }
+
+    @Test
+    void repeatedBatchFetchesAreReportedAsBatchLoads() throws Exception {
+        request(() -> IntStream.range(0, 3).forEach(i ->
+                metrics.record("select * from Author where id in (?,?,?,?)", 1_000, false)));
+
+        assertTrue(single(metrics.getRepeatedStatements()).isBatchLoad());
+    }
+
+    @Test
+    void selectsBelowTheThresholdAreNotReported() throws Exception {
+        request(() -> IntStream.range(0, 2).forEach(i ->
+                metrics.record("select * from Author where id=?", 1_000, false)));
+
+        assertTrue(metrics.getRepeatedStatements().isEmpty());
+    }
+
+    private void request(Runnable statements) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/book");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = new HandlerMethod(this, getClass().getDeclaredMethod("request", Runnable.class));
+        metrics.preHandle(request, response, handler);
+        statements.run();
+        metrics.afterCompletion(request, response, handler, null);
+    }
+
+    private static <T> T single(Collection<T> values) {
+        assertEquals(1, values.size());
+        return List.copyOf(values).getFirst();
+    }
+}
@@ -0,0 +1,111 @@
+package com.dev2ever.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The read/write routing against two separate in-memory H2 databases. Each holds a row naming the database, and the
+ * replica's lag query reads a value the test sets, so a stale replica can be played without real replication.
+ */
+class ReadWriteDataSourceTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:rw-primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:rw-replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    private final JdbcTemplate primaryDatabase = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replicaDatabase = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private ReadWriteDataSource dataSource;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void createDatabases() {
+        primaryDatabase.execute("create table origin (name varchar(20))");
+        primaryDatabase.update("insert into origin values ('primary')");
+        replicaDatabase.execute("create table origin (name varchar(20))");
+        replicaDatabase.update("insert into origin values ('replica')");
+        replicaDatabase.execute("create table replica_lag (ms bigint)");
+        replicaDatabase.update("insert into replica_lag values (0)");
+
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("db.driver", "org.h2.Driver")
+                .withProperty("db.url", PRIMARY_URL)
+                .withProperty("db.username", "sa")
+                .withProperty("db.password", "")
+                .withProperty("db.replica.url", REPLICA_URL)
+                .withProperty("db.replica.lag-query", "select ms from replica_lag")
+                .withProperty("db.replica.max-lag-ms", "1000")
+                .withProperty("db.replica.lag-check-ms", "20")
+                .withProperty("db.pool.initial-size", "1")
+                .withProperty("db.pool.min-idle", "1");
+        dataSource = (ReadWriteDataSource) PooledDataSourceFactory.createReadWrite(env);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void dropDatabases() throws Exception {
+        dataSource.close();
+        primaryDatabase.execute("drop all objects");
+        replicaDatabase.execute("drop all objects");
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertEquals("replica", origin(readOnly));
+        assertEquals("primary", origin(readWrite));
+
+        ReadWriteDataSource.RoutingStatistics statistics = dataSource.getStatistics();
+        assertTrue(statistics.replicaUsable());
+        assertEquals(1, statistics.replicaReads());
+        assertEquals(0, statistics.fallbackReads());
+    }
+
+    @Test
+    void readOnlyTransactionsUseThePrimaryWhileTheReplicaLags() {
+        replicaDatabase.update("update replica_lag set ms = 5000");
+        await(() -> !dataSource.getStatistics().replicaUsable());
+        assertEquals("primary", origin(readOnly));
+        assertEquals(5000, dataSource.getStatistics().replicaLagMillis());
+        assertEquals(1, dataSource.getStatistics().fallbackReads());
+
+        replicaDatabase.update("update replica_lag set ms = 0");
+        await(() -> dataSource.getStatistics().replicaUsable());
+        assertEquals("replica", origin(readOnly));
+    }
+
+    @Test
+    void readOnlyTransactionsUseThePrimaryWhileTheLagQueryFails() {
+        replicaDatabase.execute("drop table replica_lag");
+        await(() -> !dataSource.getStatistics().replicaUsable());
+        assertEquals("primary", origin(readOnly));
+        assertEquals(-1, dataSource.getStatistics().replicaLagMillis());
+    }
+
+    private String origin(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select name from origin", String.class));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5 s");
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.dev2ever.service;
+
+import com.dev2ever.AspectConfig;
+import com.dev2ever.JpaConfig;
+import com.dev2ever.component.ChangeClock;
+import com.dev2ever.component.ChangeFeed;
+import com.dev2ever.component.IdempotencyKeys;
+import com.dev2ever.component.metrics.RequestMetricsInterceptor;
+import com.dev2ever.component.metrics.SqlStatementMetrics;
+import com.dev2ever.datasource.ReadWriteDataSource;
+import com.dev2ever.datasource.StatementMetricsDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import javax.sql.DataSource;
+
+/**
+ * Runs the production service layer on an in-memory H2 database in PostgreSQL mode, like the benchmarks do. The
+ * replica is a second pool on the same database, so read-only transactions take the replica route as in production.
+ * All service tests share the context and its database; each test creates the rows it looks at.
+ */
+@SpringJUnitConfig(AbstractServiceTest.Context.class)
+@ActiveProfiles("production")
+@TestPropertySource(properties = {
+        "db.driver=org.h2.Driver",
+        "db.url=" + AbstractServiceTest.DB_URL,
+        "db.username=sa",
+        "db.password=",
+        "db.replica.url=" + AbstractServiceTest.DB_URL,
+        "db.replica.lag-query=select 0",
+        "db.replica.lag-check-ms=60000"})
+public abstract class AbstractServiceTest {
+
+    static final String DB_URL = "jdbc:h2:mem:services;MODE=PostgreSQL;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    SqlStatementMetrics sqlStatementMetrics;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    /**
+     * What the calls made since {@code before} cost: transactions and flushes from the Hibernate statistics, statements
+     * from the SqlStatementMetrics with a JDBC batch counted once, and read-only transactions routed to the replica.
+     * Sequence calls are left out of the queries, their number depends on where the pooled allocation stands.
+     */
+    record Counts(long transactions, long flushes, long queries, long inserts, long replicaReads) {
+
+        Counts minus(Counts before) {
+            return new Counts(transactions - before.transactions, flushes - before.flushes, queries - before.queries,
+                    inserts - before.inserts, replicaReads - before.replicaReads);
+        }
+    }
+
+    Counts counts() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ReadWriteDataSource readWrite = (ReadWriteDataSource) ((StatementMetricsDataSource) dataSource).getTargetDataSource();
+        return new Counts(statistics.getTransactionCount(), statistics.getFlushCount(),
+                statements("select") - statements("select nextval"), statements("insert"),
+                readWrite.getStatistics().replicaReads());
+    }
+
+    Counts countsSince(Counts before) {
+        return counts().minus(before);
+    }
+
+    private long statements(String keyword) {
+        return sqlStatementMetrics.getShapes().stream()
+                .filter(shape -> shape.getSql().regionMatches(true, 0, keyword, 0, keyword.length()))
+                .mapToLong(shape -> shape.getLatency().getCount())
+                .sum();
+    }
+
+    @Configuration
+    @Import({JpaConfig.class, AspectConfig.class, IdempotencyKeys.class, ChangeClock.class, ChangeFeed.class})
+    @ComponentScan("com.dev2ever.service")
+    @PropertySource("classpath:app.properties")
+    static class Context {
+
+        @Bean
+        public RequestMetricsInterceptor requestMetricsInterceptor() {
+            return new RequestMetricsInterceptor();
+        }
+    }
+}
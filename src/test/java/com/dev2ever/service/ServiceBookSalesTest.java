@@ -0,0 +1,49 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.model.Author;
+import com.dev2ever.model.BookSalesSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ServiceBookSalesTest extends AbstractServiceTest {
+
+    @Autowired
+    ServiceAuthor serviceAuthor;
+
+    @Autowired
+    ServiceBook serviceBook;
+
+    @Autowired
+    ServiceBuy serviceBuy;
+
+    @Autowired
+    ServiceBookSales serviceBookSales;
+
+    @Test
+    void rebuildRecomputesTheTotalsFromThePurchases() {
+        Author author = new Author("Isaac", "Asimov", "isaac@example.com", "555-0104");
+        serviceAuthor.save(author);
+        serviceBook.save(new JsonBook("Foundation", "Gnome Press", 1951, author.getId()));
+        Long idBook = serviceBook.findAll().stream()
+                .filter(book -> book.getTitle().equals("Foundation")).findFirst().orElseThrow().getId();
+        serviceBuy.createBuy(new JsonBuy(new BigDecimal("2"), new BigDecimal("9.99"), "first", idBook));
+        serviceBuy.createBuy(new JsonBuy(new BigDecimal("1"), new BigDecimal("12.50"), "second", idBook));
+        serviceBookSales.flush();
+        // a delta with no purchase behind it, like totals that drifted from the Buy table
+        serviceBookSales.recordPurchase(idBook, BigDecimal.TEN, BigDecimal.TEN);
+
+        serviceBookSales.rebuild();
+        serviceBookSales.flush();
+
+        BookSalesSummary summary = serviceBookSales.findByBook(idBook);
+        assertEquals(2, summary.getPurchases());
+        assertEquals(0, new BigDecimal("3").compareTo(summary.getUnits()));
+        assertEquals(0, new BigDecimal("32.48").compareTo(summary.getRevenue()));
+    }
+}
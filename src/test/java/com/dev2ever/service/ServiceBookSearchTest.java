@@ -0,0 +1,87 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonBookHit;
+import com.dev2ever.model.Author;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceBookSearchTest extends AbstractServiceTest {
+
+    @Autowired
+    ServiceAuthor serviceAuthor;
+
+    @Autowired
+    ServiceBook serviceBook;
+
+    @Autowired
+    ServiceBookSearch serviceBookSearch;
+
+    @Test
+    void renamingAnAuthorReindexesTheirBooks() {
+        Author author = new Author("Mary", "Westmacott", "mary@example.com", "555-0102");
+        serviceAuthor.save(author);
+        serviceBook.save(new JsonBook("Giant's Bread", "Collins", 1930, author.getId()));
+        List<JsonBookHit> hits = serviceBookSearch.search("westmacott", 10);
+        assertEquals(1, hits.size());
+        Long idBook = hits.getFirst().id();
+
+        Author renamed = serviceAuthor.getById(author.getId());
+        renamed.setName("Agatha");
+        renamed.setLastName("Christie");
+        serviceAuthor.update(renamed);
+
+        assertTrue(serviceBookSearch.search("westmacott", 10).isEmpty());
+        hits = serviceBookSearch.search("agatha christie", 10);
+        assertEquals(List.of(idBook), hits.stream().map(JsonBookHit::id).toList());
+        assertEquals("Agatha Christie", hits.getFirst().author());
+    }
+
+    @Test
+    void savingAnExistingAuthorReindexesTheirBooks() {
+        Author author = new Author("Richard", "Bachman", "richard@example.com", "555-0103");
+        serviceAuthor.save(author);
+        serviceBook.save(new JsonBook("The Long Walk", "Signet", 1979, author.getId()));
+
+        Author renamed = serviceAuthor.getById(author.getId());
+        renamed.setName("Stephen");
+        renamed.setLastName("King");
+        serviceAuthor.save(renamed);
+
+        assertTrue(serviceBookSearch.search("bachman", 10).isEmpty());
+        assertEquals("Stephen King", serviceBookSearch.search("long walk", 10).getFirst().author());
+    }
+
+    @Test
+    void saveAllIndexesEveryBookOnceItCommits() {
+        Author author = new Author("Terry", "Pratchett", "terry@example.com", "555-0105");
+        serviceAuthor.save(author);
+        long saved = serviceBook.saveAll(IntStream.range(0, 120)
+                .mapToObj(i -> new JsonBook("Discworld " + i, "Gollancz", 1983, author.getId()))
+                .iterator());
+
+        assertEquals(120, saved);
+        assertEquals(120, serviceBookSearch.search("discworld pratchett", 500).size());
+    }
+
+    @Test
+    void aRolledBackSaveAllIsNotIndexed() {
+        Author author = new Author("Iain", "Banks", "iain@example.com", "555-0106");
+        serviceAuthor.save(author);
+        // the second chunk names an author that does not exist, after the first chunk was flushed
+        Iterator<JsonBook> books = IntStream.range(0, 60)
+                .mapToObj(i -> new JsonBook("Culture " + i, "Macmillan", 1987, i < 55 ? author.getId() : -1L))
+                .iterator();
+
+        assertThrows(RuntimeException.class, () -> serviceBook.saveAll(books));
+        assertTrue(serviceBookSearch.search("culture banks", 500).isEmpty());
+    }
+}
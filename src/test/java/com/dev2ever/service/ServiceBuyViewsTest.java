@@ -0,0 +1,34 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonBuyView;
+import com.dev2ever.api.rest.ViewShape;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ServiceBuyViewsTest extends AbstractServiceTest {
+
+    @Autowired
+    ServiceBuy serviceBuy;
+
+    @Test
+    void flatViewsKeepPurchasesWithoutABook() {
+        // Buy.book is optional; no service call leaves it empty, so the row is written directly
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Long id = jdbc.queryForObject("select nextval('Buy_SEQ')", Long.class);
+        jdbc.update("insert into Buy (Id, OptLock, amount, price, description, purchasedAt) "
+                + "values (?, 0, 1, 10, 'no book', current_timestamp)", id);
+
+        List<JsonBuyView> views = serviceBuy.findViews(ViewShape.FLAT, id - 1, 1);
+        assertEquals(1, views.size());
+        assertEquals(id, views.getFirst().id());
+        assertNull(views.getFirst().idBook());
+        assertNull(views.getFirst().bookTitle());
+        assertEquals(id, serviceBuy.findViews(ViewShape.REF, id - 1, 1).getFirst().id());
+    }
+}
@@ -0,0 +1,134 @@
+package com.dev2ever.service;
+
+import com.dev2ever.api.rest.JsonBook;
+import com.dev2ever.api.rest.JsonBuy;
+import com.dev2ever.model.Author;
+import com.dev2ever.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * One transaction per service call, with the statements it takes; see {@link ServiceBook} for the transaction model.
+ * The second-level cache is emptied where a call would otherwise be served from it.
+ */
+class ServiceTransactionTest extends AbstractServiceTest {
+
+    @Autowired
+    ServiceAuthor serviceAuthor;
+
+    @Autowired
+    ServiceBook serviceBook;
+
+    @Autowired
+    ServiceBuy serviceBuy;
+
+    private Author author;
+
+    @BeforeEach
+    void createAuthor() {
+        author = new Author("Ursula", "Le Guin", "ursula@example.com", "555-0100");
+        serviceAuthor.save(author);
+    }
+
+    @Test
+    void authorSaveIsOneInsert() {
+        Counts before = counts();
+        serviceAuthor.save(new Author("Octavia", "Butler", "octavia@example.com", "555-0101"));
+        assertEquals(new Counts(1, 1, 0, 1, 0), countsSince(before));
+    }
+
+    @Test
+    void bookSaveLooksUpTheAuthorAndInsertsInOneTransaction() {
+        entityManagerFactory.getCache().evictAll();
+        Counts before = counts();
+        serviceBook.save(new JsonBook("The Dispossessed", "Harper & Row", 1974, author.getId()));
+        // the author lookup is part of a write transaction, so it is read from the primary
+        assertEquals(new Counts(1, 1, 1, 1, 0), countsSince(before));
+    }
+
+    @Test
+    void bookSaveAllInsertsInBatchesInOneTransaction() {
+        Counts before = counts();
+        // hibernate.jdbc.batch_size=50: chunks of 50, 50 and 20 books, each with one author query and one batch
+        long saved = serviceBook.saveAll(IntStream.range(0, 120)
+                .mapToObj(i -> new JsonBook("Earthsea " + i, "Parnassus", 1968, author.getId()))
+                .iterator());
+        Counts counts = countsSince(before);
+        assertEquals(120, saved);
+        assertEquals(1, counts.transactions());
+        assertEquals(3, counts.queries());
+        assertEquals(3, counts.inserts());
+        assertEquals(0, counts.replicaReads());
+    }
+
+    @Test
+    void bookFindByIdIsReadOnlyAndThenCached() {
+        Book book = saveBook();
+        entityManagerFactory.getCache().evictAll();
+        Counts before = counts();
+        assertNotNull(serviceBook.findById(book.getId()));
+        // the book and its author, on the replica and without a flush
+        assertEquals(new Counts(1, 0, 2, 0, 1), countsSince(before));
+
+        before = counts();
+        assertNotNull(serviceBook.findById(book.getId()));
+        assertEquals(new Counts(1, 0, 0, 0, 0), countsSince(before));
+    }
+
+    @Test
+    void authorGetAllIsOneQueryOnThePrimaryWithoutFlush() {
+        Counts before = counts();
+        serviceAuthor.getAll();
+        // tagged with the ChangeClock ETag, so read from the primary; see ServiceBook.readFromPrimary
+        assertEquals(new Counts(1, 0, 1, 0, 0), countsSince(before));
+    }
+
+    @Test
+    void bookFindAllIsReadFromThePrimaryAndThenCached() {
+        saveBook();
+        entityManagerFactory.getCache().evictAll();
+        Counts before = counts();
+        serviceBook.findAll();
+        // the authors are batch-fetched, how many queries that takes depends on the books the other tests left
+        Counts counts = countsSince(before);
+        assertEquals(1, counts.transactions());
+        assertEquals(0, counts.flushes());
+        assertEquals(0, counts.replicaReads());
+
+        before = counts();
+        serviceBook.findAll();
+        assertEquals(new Counts(1, 0, 0, 0, 0), countsSince(before));
+    }
+
+    @Test
+    void buyCreateLooksUpTheBookAndInsertsInOneTransaction() {
+        Book book = saveBook();
+        entityManagerFactory.getCache().evictAll();
+        Counts before = counts();
+        assertNotNull(serviceBuy.createBuy(new JsonBuy(BigDecimal.ONE, new BigDecimal("9.99"), "paperback", book.getId())));
+        assertEquals(new Counts(1, 1, 1, 1, 0), countsSince(before));
+    }
+
+    @Test
+    void buyFindAllFetchesBooksAndAuthorsWithOneReadOnlyQuery() {
+        Book book = saveBook();
+        serviceBuy.createBuy(new JsonBuy(BigDecimal.ONE, new BigDecimal("9.99"), "paperback", book.getId()));
+        entityManagerFactory.getCache().evictAll();
+        Counts before = counts();
+        serviceBuy.findAll();
+        assertEquals(new Counts(1, 0, 1, 0, 1), countsSince(before));
+    }
+
+    private Book saveBook() {
+        String title = "The Lathe of Heaven " + author.getId();
+        serviceBook.save(new JsonBook(title, "Scribner", 1971, author.getId()));
+        return serviceBook.findAll().stream().filter(book -> book.getTitle().equals(title)).findFirst().orElseThrow();
+    }
+}